@@ -0,0 +1,70 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.reflect.BeanMapper;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of loading one log page deep into a large history, by seeking to an estimated timestamp versus from the
+// previous page's last row, and of the first page and match count of a log window search for one student
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AttendanceTableModelBenchmark {
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private Jdbi jdbi;
+    private AttendanceDao attendanceDao;
+    private Attendance anchor;
+    private final QueryCanceller canceller = new QueryCanceller(0);
+    private final AttendanceFilter studentFilter = new AttendanceFilter(2023000042L, null, null, null);
+
+    @Setup
+    public void setup() {
+        jdbi = Jdbi.create("jdbc:h2:mem:log" + rows + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbi.installPlugin(new SqlObjectPlugin());
+        jdbi.registerRowMapper(BeanMapper.factory(Attendance.class));
+        new SchemaMigrator(jdbi, false).migrate();
+        attendanceDao = jdbi.onDemand(AttendanceDao.class);
+
+        BenchmarkData.seedAttendance(attendanceDao, rows);
+
+        // The last row before a page 90% of the way down; seeded a second apart, so its time is a fair estimate too
+        List<Attendance> oldest = attendanceDao.findPageBefore(AttendanceFilter.NONE, null, 0, rows / 10 + 1, canceller);
+        anchor = oldest.getLast();
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbi.useHandle(handle -> handle.execute("DROP ALL OBJECTS"));
+    }
+
+    @Benchmark
+    public List<Attendance> estimatedPage() {
+        return attendanceDao.findPageAfter(AttendanceFilter.NONE, anchor.getTimestamp(), Long.MAX_VALUE,
+                AttendanceTableModel.PAGE_SIZE, canceller);
+    }
+
+    @Benchmark
+    public List<Attendance> keysetPage() {
+        return attendanceDao.findPageAfter(AttendanceFilter.NONE, anchor.getTimestamp(), anchor.getAttendanceId(),
+                AttendanceTableModel.PAGE_SIZE, canceller);
+    }
+
+    @Benchmark
+    public List<Attendance> studentFilterPage() {
+        return attendanceDao.findPageAfter(studentFilter, null, 0, AttendanceTableModel.PAGE_SIZE, canceller);
+    }
+
+    @Benchmark
+    public int studentFilterCount() {
+        return attendanceDao.countRecordsBetween(studentFilter, 0, Long.MAX_VALUE, canceller);
+    }
+}
@@ -0,0 +1,157 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.*;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.objdetect.QRCodeEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Inputs shared by the benchmarks: synthetic camera frames and photos, an in-memory StudentDao
+// and seeded attendance histories
+final class BenchmarkData {
+    static final long STUDENT_NO = 2023001234L;
+
+    private BenchmarkData() {}
+
+    // A recorded frame from -Dbench.frame=<image>, or a QR code for STUDENT_NO on a plain background,
+    // scaled to width x height
+    static Mat frame(int width, int height) {
+        String recorded = System.getProperty("bench.frame");
+        Mat frame = new Mat();
+        if (recorded != null) {
+            Imgproc.resize(Imgcodecs.imread(recorded), frame, new Size(width, height), 0, 0, Imgproc.INTER_AREA);
+            return frame;
+        }
+
+        Mat qr = new Mat();
+        QRCodeEncoder.create().encode(Long.toString(STUDENT_NO), qr);
+        int side = Math.min(width, height) / 3;
+        Mat scaled = new Mat();
+        Imgproc.resize(qr, scaled, new Size(side, side), 0, 0, Imgproc.INTER_NEAREST);
+        Mat color = new Mat();
+        Imgproc.cvtColor(scaled, color, Imgproc.COLOR_GRAY2BGR);
+
+        frame.create(height, width, CvType.CV_8UC3);
+        frame.setTo(new Scalar(180, 170, 160));
+        color.copyTo(frame.submat(new Rect((width - side) / 2, (height - side) / 2, side, side)));
+        return frame;
+    }
+
+    // A JPEG of the given size, roughly what an uploaded student photo looks like
+    static byte[] photo(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.DARK_GRAY, width, height, Color.LIGHT_GRAY));
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.ORANGE);
+        g.fillOval(width / 4, height / 6, width / 2, height / 2);
+        g.dispose();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Students student() {
+        Students student = new Students();
+        student.setStudentNo(STUDENT_NO);
+        student.setFirstName("Juan");
+        student.setMiddleName("Santos");
+        student.setLastName("Dela Cruz");
+        student.setProgramId("BSCS");
+        student.setYearLevel("3");
+        return student;
+    }
+
+    // Pre-sized copies of a photo, as the import or backfill would store them
+    static StudentPhotos.Variants variants(byte[] photo) {
+        try {
+            return StudentPhotos.variants(StudentPhotos.decode(photo));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Serves a single student and photo, with its pre-sized copies, without a database.
+    // Writes are accepted and dropped, so a benchmark that imports or backfills still reads the same fixture.
+    static StudentDao studentDao(byte[] photo) {
+        Students student = student();
+        StudentPhotos.Variants variants = variants(photo);
+        return new StudentDao() {
+            @Override
+            public Optional<Students> findStudent(String studentNo) {
+                return Optional.of(student);
+            }
+
+            @Override
+            public List<Students> findAllStudents() {
+                return List.of(student);
+            }
+
+            @Override
+            public boolean studentExists(long studentNo) {
+                return studentNo == STUDENT_NO;
+            }
+
+            @Override
+            public byte[] findPicture(String studentNo) {
+                return photo;
+            }
+
+            @Override
+            public byte[] findDisplayPicture(String studentNo) {
+                return variants.display();
+            }
+
+            @Override
+            public byte[] findThumbPicture(String studentNo) {
+                return variants.thumb();
+            }
+
+            @Override
+            public List<Long> findStudentsMissingVariants(long after, boolean all, int limit) {
+                return List.of();
+            }
+
+            @Override
+            public void updatePictureVariants(List<Long> studentNos, List<byte[]> displays, List<byte[]> thumbs) {
+            }
+
+            @Override
+            public void upsertStudents(List<Students> students, List<byte[]> pictures, List<byte[]> displays,
+                                       List<byte[]> thumbs) {
+            }
+        };
+    }
+
+    // One scan a second for STUDENTS students in rotation, alternating in and out
+    static final int STUDENTS = 5000;
+
+    static void seedAttendance(AttendanceDao attendanceDao, int rows) {
+        long start = System.currentTimeMillis() - rows * 1000L;
+        for (int first = 0; first < rows; first += 10000) {
+            List<Attendance> batch = new ArrayList<>(10000);
+            for (int i = first; i < Math.min(rows, first + 10000); i++) {
+                Attendance record = new Attendance();
+                record.setStudentNo(2023000000L + (i % STUDENTS));
+                record.setTimestamp(new Timestamp(start + i * 1000L));
+                record.setStatus(i / STUDENTS % 2 == 0 ? AttendanceState.LOGGED_IN : AttendanceState.LOGGED_OUT);
+                batch.add(record);
+            }
+            attendanceDao.insertBatch(batch);
+        }
+    }
+}
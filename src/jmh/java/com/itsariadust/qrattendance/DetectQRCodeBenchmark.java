@@ -0,0 +1,58 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+import org.opencv.objdetect.QRCodeDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetectQRCodeBenchmark {
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private QRAttendance system;
+    private QRDecoder decoder;
+    private QRCodeDetector fullFrameDetector;
+    private Mat frame;
+    private Mat emptyFrame;
+
+    @Setup
+    public void setup() {
+        system = new QRAttendance();
+        decoder = new QRDecoder(QRAttendance.qrDetectScale);
+        fullFrameDetector = new QRCodeDetector();
+        String[] size = resolution.split("x");
+        frame = BenchmarkData.frame(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        emptyFrame = new Mat(frame.size(), frame.type());
+        emptyFrame.setTo(new org.opencv.core.Scalar(128, 128, 128));
+    }
+
+    @TearDown
+    public void tearDown() {
+        decoder.release();
+        frame.release();
+        emptyFrame.release();
+    }
+
+    @Benchmark
+    public String detectQRCode() {
+        return system.detectQRCode(frame, decoder);
+    }
+
+    @Benchmark
+    public String detectQRCodeNoCode() {
+        return system.detectQRCode(emptyFrame, decoder);
+    }
+
+    // The original single-pass call on the full color frame, for comparison
+    @Benchmark
+    public String fullFrameDetectAndDecode() {
+        return fullFrameDetector.detectAndDecode(frame);
+    }
+}
@@ -0,0 +1,44 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatToBufferedImageBenchmark {
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private Mat frame;
+    private BufferedImage reused;
+
+    @Setup
+    public void setup() {
+        new QRAttendance(); // Loads OpenCV
+        String[] size = resolution.split("x");
+        frame = BenchmarkData.frame(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        reused = SystemUI.matToBufferedImage(frame, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.release();
+    }
+
+    @Benchmark
+    public BufferedImage reuseBuffer() {
+        return SystemUI.matToBufferedImage(frame, reused);
+    }
+
+    @Benchmark
+    public BufferedImage freshBuffer() {
+        return SystemUI.matToBufferedImage(frame, null);
+    }
+}
@@ -0,0 +1,37 @@
+package com.itsariadust.qrattendance;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopulateInfoBenchmark {
+    private QRAttendance system;
+    private Attendance attendance;
+    private Optional<Students> student;
+
+    @Setup
+    public void setup() {
+        system = new QRAttendance();
+        student = Optional.of(BenchmarkData.student());
+        attendance = new Attendance();
+        attendance.setStudentNo(BenchmarkData.STUDENT_NO);
+        attendance.setTimestamp(new Timestamp(System.currentTimeMillis()));
+        attendance.setStatus(AttendanceState.LOGGED_IN);
+    }
+
+    @Benchmark
+    public ArrayList<String> populateInfo() {
+        ArrayList<String> info = new ArrayList<>();
+        system.populateInfo(info, attendance, student);
+        return info;
+    }
+}
@@ -0,0 +1,38 @@
+package com.itsariadust.qrattendance;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// What the per-stage instrumentation adds to each frame, alone and with every gate recording at once
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanMetricsBenchmark {
+    private final ScanMetrics metrics = new ScanMetrics();
+
+    // A decode timing plus the frame counter, as the scan loop does per frame
+    @Benchmark
+    @Threads(1)
+    public void recordFrame() {
+        long start = System.nanoTime();
+        metrics.frameCaptured();
+        metrics.record(ScanMetrics.Stage.DECODE, start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordFrameContended() {
+        long start = System.nanoTime();
+        metrics.frameCaptured();
+        metrics.record(ScanMetrics.Stage.DECODE, start);
+    }
+
+    @Benchmark
+    public String summary() {
+        return metrics.getSummary();
+    }
+}
@@ -0,0 +1,67 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.reflect.BeanMapper;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// The hot attendance queries on a seeded local database with only the V1 tables versus after all migrations
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SchemaMigrationBenchmark {
+    @Param({"500000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean migrated;
+
+    private Jdbi jdbi;
+    private AttendanceDao attendanceDao;
+    private final QueryCanceller canceller = new QueryCanceller(0);
+    private final String studentNo = Long.toString(2023000042L);
+    private final AttendanceFilter studentFilter = new AttendanceFilter(2023000042L, null, null, null);
+
+    @Setup
+    public void setup() {
+        jdbi = Jdbi.create("jdbc:h2:mem:schema" + rows + migrated + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbi.installPlugin(new SqlObjectPlugin());
+        jdbi.registerRowMapper(BeanMapper.factory(Attendance.class));
+        SchemaMigrator migrator = new SchemaMigrator(jdbi, false);
+        migrator.migrate(1);
+        attendanceDao = jdbi.onDemand(AttendanceDao.class);
+        BenchmarkData.seedAttendance(attendanceDao, rows);
+        if (migrated) {
+            migrator.migrate(); // Indexes built over the existing rows, as on an upgraded install
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbi.useHandle(handle -> handle.execute("DROP ALL OBJECTS"));
+    }
+
+    // WHERE StudentNo = ? ORDER BY Timestamp DESC LIMIT 1
+    @Benchmark
+    public Optional<Attendance> latestRecord() {
+        return attendanceDao.findLatestRecord(studentNo);
+    }
+
+    // The log window's first screen
+    @Benchmark
+    public List<Attendance> logFirstPage() {
+        return attendanceDao.findPageAfter(AttendanceFilter.NONE, null, 0, AttendanceTableModel.PAGE_SIZE, canceller);
+    }
+
+    @Benchmark
+    public List<Attendance> studentSearchPage() {
+        return attendanceDao.findPageAfter(studentFilter, null, 0, AttendanceTableModel.PAGE_SIZE, canceller);
+    }
+}
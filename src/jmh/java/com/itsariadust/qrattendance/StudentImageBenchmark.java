@@ -0,0 +1,63 @@
+package com.itsariadust.qrattendance;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentImageBenchmark {
+    // Side of the stored original photo
+    @Param({"600", "2000"})
+    public int photoSize;
+
+    private QRAttendance system;
+    private byte[] photo;
+    private StudentPhotos.Variants variants;
+    private PhotoCache photoCache;
+    private ArrayList<String> studentInfo;
+
+    @Setup
+    public void setup() {
+        system = new QRAttendance();
+        photo = BenchmarkData.photo(photoSize, photoSize);
+        variants = BenchmarkData.variants(photo);
+        photoCache = new PhotoCache(BenchmarkData.studentDao(photo), 64L * 1024 * 1024);
+        studentInfo = new ArrayList<>();
+        studentInfo.add(Long.toString(BenchmarkData.STUDENT_NO));
+        system.getStudentImage(photoCache, studentInfo); // Warm the cache for the hit path
+    }
+
+    @Benchmark
+    public BufferedImage decodeAndScaleScanner() {
+        return PhotoCache.decodeScaled(photo, 1000, 1000);
+    }
+
+    @Benchmark
+    public BufferedImage decodeAndScaleLog() {
+        return PhotoCache.decodeScaled(photo, 300, 300);
+    }
+
+    // Cache misses once the pre-sized copies are stored: decode only, whatever the size of the original
+    @Benchmark
+    public BufferedImage decodeDisplayVariant() {
+        return PhotoCache.decodeScaled(variants.display(), StudentPhotos.DISPLAY_SIZE, StudentPhotos.DISPLAY_SIZE);
+    }
+
+    @Benchmark
+    public BufferedImage decodeThumbVariant() {
+        return PhotoCache.decodeScaled(variants.thumb(), StudentPhotos.THUMB_SIZE, StudentPhotos.THUMB_SIZE);
+    }
+
+    @Benchmark
+    public ImageIcon getStudentImageCached() {
+        return system.getStudentImage(photoCache, studentInfo);
+    }
+}
@@ -1,12 +1,15 @@
 package com.itsariadust.qrattendance;
 
+import org.jdbi.v3.sqlobject.SqlObject;
 import org.jdbi.v3.sqlobject.statement.*;
 import org.jdbi.v3.sqlobject.customizer.*;
 
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
 import java.time.LocalDateTime;
 
-public interface AttendanceDao {
+public interface AttendanceDao extends SqlObject {
 	// Find latest record
 	@SqlQuery("""
 			SELECT * FROM attendance
@@ -16,6 +19,22 @@ public interface AttendanceDao {
 			""")
 	Optional<Attendance> findLatestRecord(@Bind("studentNo") String studentNo);
 
+	// Latest record of every student, used to seed AttendanceState. Latest by Timestamp like findLatestRecord:
+	// rows pushed from other gates after an outage get higher AttendanceIDs than scans made after them.
+	// One seek per student on idx_attendance_student_time rather than a window sorting the whole table:
+	// MySQL lists the students by skipping along the index, then reads each one's newest entry from its end.
+	@SqlQuery("""
+			SELECT a.AttendanceID, a.StudentNo, a.Timestamp, a.Status
+            FROM (SELECT DISTINCT StudentNo FROM attendance) s
+            JOIN attendance a ON a.AttendanceID = (
+                SELECT latest.AttendanceID FROM attendance latest
+                WHERE latest.StudentNo = s.StudentNo
+                ORDER BY latest.Timestamp DESC, latest.AttendanceID DESC
+                LIMIT 1
+            )
+			""")
+	List<Attendance> findLatestRecords();
+
 	// Find record by Record ID
 	@SqlQuery("""
 			SELECT * FROM attendance WHERE AttendanceID = :attendanceID
@@ -35,4 +54,85 @@ public interface AttendanceDao {
 		@Bind("timestamp") LocalDateTime timestamp,
 		@Bind("status") String status
 	);
+
+	// Write-behind flush, one round trip per batch
+	@SqlBatch("""
+			INSERT INTO attendance (StudentNo, Timestamp, Status)
+            VALUES(
+             	:studentNo,
+                :timestamp,
+                :status
+            )
+			""")
+	void insertBatch(@BindBean List<Attendance> records);
+
+	// Rows pushed from a gate's local store. Keyed by gate and local AttendanceID, so rows MySQL already has
+	// (a batch re-sent after a crash before it was marked synced) are left as they are.
+	@SqlBatch("""
+			INSERT INTO attendance (StudentNo, Timestamp, Status, GateID, LocalID)
+            VALUES(
+             	:studentNo,
+                :timestamp,
+                :status,
+                :gateId,
+                :attendanceId
+            )
+            ON DUPLICATE KEY UPDATE AttendanceID = AttendanceID
+			""")
+	void insertFromGate(@Bind("gateId") String gateId, @BindBean List<Attendance> records);
+
+	// Newest AttendanceID, the upper bound of a log poll
+	@SqlQuery("""
+			SELECT COALESCE(MAX(AttendanceID), 0) FROM attendance
+			""")
+	long findLastAttendanceId();
+
+	// Rows matching the filter added in an AttendanceID range, so the log can grow without recounting the table.
+	// Polls count a short primary key range. The first count after picking a filter covers every row: student
+	// and date filters narrow it with idx_attendance_student_time and idx_attendance_time, but a status-only
+	// filter reads the whole table. A status index wouldn't change the order of that (half the entries with two
+	// statuses) and, on H2 at least, gets picked over the primary key range for the polls.
+	default int countRecordsBetween(AttendanceFilter filter, long afterId, long upToId, QueryCanceller canceller) {
+		return getHandle().createQuery("SELECT COUNT(*) FROM attendance"
+				+ " WHERE AttendanceID > :afterId AND AttendanceID <= :upToId" + filter.and())
+			.bind("afterId", afterId)
+			.bind("upToId", upToId)
+			.bindMap(filter.bindings())
+			.addCustomizer(canceller)
+			.mapTo(Integer.class)
+			.one();
+	}
+
+	// Up to limit log rows older than (timestamp, attendanceId), newest first, or the newest rows when timestamp is
+	// null. Always a seek on idx_attendance_time: no OFFSET, so a page deep in the history costs the same as the
+	// first. The seek is spelled out rather than as a row comparison, which MySQL doesn't always turn into a range
+	// on the index; the leading Timestamp <= gives it that range either way.
+	default List<Attendance> findPageAfter(AttendanceFilter filter, Timestamp timestamp, long attendanceId, int limit,
+			QueryCanceller canceller) {
+		return findPage(filter, timestamp == null ? "" : " AND Timestamp <= :timestamp"
+				+ " AND (Timestamp < :timestamp OR (Timestamp = :timestamp AND AttendanceID < :attendanceId))",
+				"DESC", timestamp, attendanceId, limit, canceller);
+	}
+
+	// Up to limit log rows newer than (timestamp, attendanceId), oldest first, or the oldest rows when timestamp is
+	// null; how the log fills a page upwards from the one below it
+	default List<Attendance> findPageBefore(AttendanceFilter filter, Timestamp timestamp, long attendanceId, int limit,
+			QueryCanceller canceller) {
+		return findPage(filter, timestamp == null ? "" : " AND Timestamp >= :timestamp"
+				+ " AND (Timestamp > :timestamp OR (Timestamp = :timestamp AND AttendanceID > :attendanceId))",
+				"ASC", timestamp, attendanceId, limit, canceller);
+	}
+
+	private List<Attendance> findPage(AttendanceFilter filter, String seek, String direction, Timestamp timestamp,
+			long attendanceId, int limit, QueryCanceller canceller) {
+		return getHandle().createQuery("SELECT * FROM attendance WHERE TRUE" + seek + filter.and()
+				+ " ORDER BY Timestamp " + direction + ", AttendanceID " + direction + " LIMIT :limit")
+			.bind("timestamp", timestamp)
+			.bind("attendanceId", attendanceId)
+			.bind("limit", limit)
+			.bindMap(filter.bindings())
+			.addCustomizer(canceller)
+			.mapTo(Attendance.class)
+			.list();
+	}
 }
@@ -0,0 +1,38 @@
+package com.itsariadust.qrattendance;
+
+import java.sql.Timestamp;
+
+// One committed scan as seen by event subscribers. Sequence numbers increase by one per event within a process
+// and start over in the next; the epoch (when the process's bus was created) tells the two apart.
+public record AttendanceEvent(long epoch, long sequence, long studentNo, Timestamp timestamp, String status) {
+    // "<epoch>-<sequence>", the SSE event id a reconnecting client sends back
+    String id() {
+        return epoch + "-" + sequence;
+    }
+
+    String toJson() {
+        return "{\"id\":\"" + id() + "\""
+                + ",\"sequence\":" + sequence
+                + ",\"studentNo\":" + studentNo
+                + ",\"timestamp\":\"" + timestamp.toLocalDateTime() + "\""
+                + ",\"status\":\"" + escape(status) + "\"}";
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.itsariadust.qrattendance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// In-process fan-out of attendance rows once the writer has committed them, plus a ring buffer
+// of the latest events so late subscribers can catch up. Subscribers run on the writer thread
+// and must hand events off rather than block.
+public class AttendanceEventBus {
+    private final List<Consumer<AttendanceEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final AttendanceEvent[] recent;
+    private final long epoch = System.currentTimeMillis();
+    private long lastSequence;
+
+    private final LongAdder published = new LongAdder();
+
+    public AttendanceEventBus(int capacity) {
+        this.recent = new AttendanceEvent[capacity];
+    }
+
+    // Called by the writer after a batch is committed
+    public void publish(List<Attendance> committed) {
+        for (Attendance attendance : committed) {
+            AttendanceEvent event;
+            synchronized (this) {
+                event = new AttendanceEvent(epoch, ++lastSequence, attendance.getStudentNo(),
+                        attendance.getTimestamp(), attendance.getStatus());
+                recent[(int) (event.sequence() % recent.length)] = event;
+            }
+            published.increment();
+            for (Consumer<AttendanceEvent> subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // One broken subscriber mustn't hold up the rest or the writer
+                }
+            }
+        }
+    }
+
+    public void subscribe(Consumer<AttendanceEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<AttendanceEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    // Buffered events after the given sequence number, oldest first
+    public synchronized List<AttendanceEvent> since(long sequence) {
+        long first = Math.max(sequence + 1, lastSequence - recent.length + 1);
+        List<AttendanceEvent> events = new ArrayList<>((int) Math.max(0, lastSequence - first + 1));
+        for (long seq = Math.max(1, first); seq <= lastSequence; seq++) {
+            events.add(recent[(int) (seq % recent.length)]);
+        }
+        return events;
+    }
+
+    // The latest events, oldest first
+    public synchronized List<AttendanceEvent> recent(int limit) {
+        return since(lastSequence - Math.min(limit, recent.length));
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public String stats() {
+        synchronized (this) {
+            return String.format("event bus published=%d lastSequence=%d subscribers=%d",
+                    published.sum(), lastSequence, subscribers.size());
+        }
+    }
+}
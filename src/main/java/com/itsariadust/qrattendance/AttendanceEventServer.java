@@ -0,0 +1,229 @@
+package com.itsariadust.qrattendance;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Serves the event bus over HTTP so dashboards and other gates can follow scans without polling MySQL:
+//   GET /events/recent?limit=N  latest events as a JSON array, oldest first
+//   GET /events/stream          Server-Sent Events, resuming after Last-Event-ID (or ?since=ID) on reconnect
+// Event ids are "<epoch>-<sequence>". An id from an earlier run of the gate (another epoch, or a bare sequence
+// beyond the current one) gets the whole buffer, since its sequence numbers mean nothing to this one.
+// Browsers on other origins may only read the events when EVENT_HTTP_ALLOWED_ORIGIN names that origin.
+public class AttendanceEventServer {
+    private static final int DEFAULT_RECENT = 50;
+    private static final long HEARTBEAT_MILLIS = 15000;
+
+    // Events a stream client may fall behind by before it is dropped and left to reconnect
+    private static final int CLIENT_QUEUE_SIZE = 1024;
+
+    // Queued behind a client's pending events on stop, so they are all sent before the stream closes
+    private static final AttendanceEvent END_OF_STREAM = new AttendanceEvent(0, -1, 0, null, null);
+    private static final int STOP_GRACE_SECONDS = 1;
+
+    private final AttendanceEventBus eventBus;
+    private final String allowedOrigin;
+    private final HttpServer server;
+    private final Set<BlockingQueue<AttendanceEvent>> streams = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger clients = new AtomicInteger();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder clientsDropped = new LongAdder();
+
+    // allowedOrigin is the one browser origin allowed to read events cross-origin, or empty for none
+    public AttendanceEventServer(AttendanceEventBus eventBus, String host, int port, String allowedOrigin)
+            throws IOException {
+        this.eventBus = eventBus;
+        this.allowedOrigin = allowedOrigin;
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/events/recent", this::recent);
+        server.createContext("/events/stream", this::stream);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor()); // Each stream client holds its thread
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Attendance events served at http://" + server.getAddress().getHostString()
+                + ":" + server.getAddress().getPort() + "/events/stream");
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        for (BlockingQueue<AttendanceEvent> queue : streams) {
+            queue.offer(END_OF_STREAM);
+        }
+        server.stop(STOP_GRACE_SECONDS);
+    }
+
+    private void recent(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            long limit = queryParameter(exchange, "limit", DEFAULT_RECENT);
+            List<AttendanceEvent> events = eventBus.recent((int) Math.max(0, Math.min(limit, Integer.MAX_VALUE)));
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < events.size(); i++) {
+                json.append(i == 0 ? "" : ",").append(events.get(i).toJson());
+            }
+            byte[] body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            allowOrigin(exchange);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private void stream(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+            long lastSent = lastEventId != null ? resumeAfter(lastEventId) : resumeAfter(queryString(exchange, "since"));
+
+            // Subscribe before reading the backlog so nothing published in between is missed
+            BlockingQueue<AttendanceEvent> queue = new ArrayBlockingQueue<>(CLIENT_QUEUE_SIZE);
+            AtomicBoolean lagging = new AtomicBoolean();
+            Consumer<AttendanceEvent> subscriber = event -> {
+                if (!queue.offer(event)) {
+                    lagging.set(true);
+                }
+            };
+            eventBus.subscribe(subscriber);
+            streams.add(queue);
+            clients.incrementAndGet();
+            try {
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                allowOrigin(exchange);
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream out = exchange.getResponseBody();
+                write(out, "retry: 2000\n\n");
+
+                // Without an ID a client only gets new events
+                List<AttendanceEvent> backlog = lastSent < 0 ? List.of() : eventBus.since(lastSent);
+                for (AttendanceEvent event : backlog) {
+                    send(out, event);
+                    lastSent = event.sequence();
+                }
+                out.flush();
+
+                while (true) {
+                    AttendanceEvent event = queue.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (lagging.get()) {
+                        clientsDropped.increment();
+                        return; // Reconnects with Last-Event-ID and catches up from the buffer
+                    }
+                    if (event == null) {
+                        write(out, ": keepalive\n\n"); // Also how a closed connection gets noticed
+                    }
+                    // Send this and whatever else is already queued in the same flush
+                    for (; event != null; event = queue.poll()) {
+                        if (event == END_OF_STREAM) {
+                            out.flush();
+                            return;
+                        }
+                        if (event.sequence() > lastSent) {
+                            send(out, event);
+                            lastSent = event.sequence();
+                        }
+                    }
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // Client went away or the server is stopping
+            } finally {
+                eventBus.unsubscribe(subscriber);
+                streams.remove(queue);
+                clients.decrementAndGet();
+            }
+        }
+    }
+
+    private void send(OutputStream out, AttendanceEvent event) throws IOException {
+        write(out, "id: " + event.id() + "\nevent: attendance\ndata: " + event.toJson() + "\n\n");
+        eventsSent.increment();
+    }
+
+    // Sequence number to resume after for a client's last event id: -1 (only new events) without one,
+    // 0 (the whole buffer) for an id this run of the gate didn't hand out
+    private long resumeAfter(String id) {
+        if (id == null || id.isBlank()) {
+            return -1;
+        }
+        int dash = id.indexOf('-', 1);
+        long sequence = parseLong(dash < 0 ? id : id.substring(dash + 1), 0);
+        if (dash >= 0 && parseLong(id.substring(0, dash), 0) != eventBus.getEpoch()) {
+            return 0;
+        }
+        return sequence > eventBus.getLastSequence() ? 0 : sequence;
+    }
+
+    // CORS only for the configured origin; Vary keeps caches from serving one origin's answer to another
+    private void allowOrigin(HttpExchange exchange) {
+        if (allowedOrigin.isEmpty()) {
+            return;
+        }
+        exchange.getResponseHeaders().set("Vary", "Origin");
+        if (allowedOrigin.equals(exchange.getRequestHeaders().getFirst("Origin"))) {
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", allowedOrigin);
+        }
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long queryParameter(HttpExchange exchange, String name, long defaultValue) {
+        String value = queryString(exchange, name);
+        return value == null ? defaultValue : parseLong(value, defaultValue);
+    }
+
+    private static String queryString(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public String stats() {
+        return String.format("event server clients=%d eventsSent=%d clientsDropped=%d",
+                clients.get(), eventsSent.sum(), clientsDropped.sum());
+    }
+}
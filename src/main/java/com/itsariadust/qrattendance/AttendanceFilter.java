@@ -0,0 +1,87 @@
+package com.itsariadust.qrattendance;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Log window search criteria; a null field matches everything.
+// Turned into SQL conditions with named parameters, so typed values never end up in the query text.
+// studentNo matches as a prefix of student numbers up to studentNoDigits long, so the log narrows while it is typed.
+public record AttendanceFilter(Long studentNo, int studentNoDigits, String status, LocalDate from, LocalDate to) {
+    public static final AttendanceFilter NONE = new AttendanceFilter(null, null, null, null);
+
+    public AttendanceFilter {
+        studentNoDigits = studentNo == null ? 0 : studentNoDigits;
+    }
+
+    // Exactly one student number
+    public AttendanceFilter(Long studentNo, String status, LocalDate from, LocalDate to) {
+        this(studentNo, studentNo == null ? 0 : digits(studentNo), status, from, to);
+    }
+
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+
+    // " AND ..." to append to an existing WHERE clause
+    String and() {
+        List<String> conditions = conditions();
+        return conditions.isEmpty() ? "" : " AND " + String.join(" AND ", conditions);
+    }
+
+    private List<String> conditions() {
+        List<String> conditions = new ArrayList<>(4);
+        if (studentNo != null) {
+            // One index range per length the number could have: a prefix of 2023 is 2023, 20230-20239, ...
+            List<String> ranges = new ArrayList<>();
+            for (int length = digits(studentNo); length <= lastLength(); length++) {
+                ranges.add("StudentNo BETWEEN :filterStudentFrom" + length + " AND :filterStudentTo" + length);
+            }
+            conditions.add("(" + String.join(" OR ", ranges) + ")");
+        }
+        if (status != null) {
+            conditions.add("Status = :filterStatus");
+        }
+        if (from != null) {
+            conditions.add("Timestamp >= :filterFrom");
+        }
+        if (to != null) {
+            conditions.add("Timestamp < :filterUntil");
+        }
+        return conditions;
+    }
+
+    Map<String, Object> bindings() {
+        Map<String, Object> bindings = new HashMap<>(4);
+        if (studentNo != null) {
+            long scale = 1;
+            for (int length = digits(studentNo); length <= lastLength(); length++) {
+                bindings.put("filterStudentFrom" + length, studentNo * scale);
+                bindings.put("filterStudentTo" + length, (studentNo + 1) * scale - 1);
+                scale *= 10;
+            }
+        }
+        if (status != null) {
+            bindings.put("filterStatus", status);
+        }
+        if (from != null) {
+            bindings.put("filterFrom", Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            bindings.put("filterUntil", Timestamp.valueOf(to.plusDays(1).atStartOfDay())); // Whole end day included
+        }
+        return bindings;
+    }
+
+    // Student numbers parse to at most 18 digits, so the widest range still fits in a long
+    private int lastLength() {
+        return Math.min(18, Math.max(digits(studentNo), studentNoDigits));
+    }
+
+    private static int digits(long studentNo) {
+        return Long.toString(studentNo).length();
+    }
+}
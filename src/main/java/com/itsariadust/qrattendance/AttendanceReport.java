@@ -0,0 +1,276 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.Query;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Attendance summary over a date range, computed in one forward-only pass over rows ordered by student, then time.
+// Each student's scans are paired into sessions (LOGGED IN followed by LOGGED OUT), so only one student's state
+// is held at a time; totals per day, program and year level grow with the range, never with the row count.
+// A report can be split by student number into chunks that run in parallel, each on its own connection;
+// every student's history lands in exactly one chunk, so the merged totals match a single pass.
+public class AttendanceReport {
+    // Rows this far past either end of the range are read too, so sessions crossing its edges still pair up.
+    // A session counts towards the day of its login; an orphan logout towards its own day.
+    private static final int LOOKAROUND_DAYS = 1;
+
+    private static final String UNKNOWN = "Unknown";
+
+    private record Row(long studentNo, LocalDateTime time, String status, String program, String yearLevel) {}
+
+    private final Jdbi jdbi;
+    private final int fetchSize;
+
+    public AttendanceReport(Jdbi jdbi, int fetchSize) {
+        this.jdbi = jdbi;
+        this.fetchSize = fetchSize;
+    }
+
+    // Report for the days from..to inclusive, split across up to `threads` connections
+    public Summary run(LocalDate from, LocalDate to, int threads) throws InterruptedException {
+        if (to.isBefore(from)) {
+            return new Summary();
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        if (threads <= 1) {
+            return scan(start, end, null, null);
+        }
+
+        // More chunks than threads so one busy stretch of students doesn't leave the others idle
+        List<Long> bounds = studentBounds(threads * 4);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Summary>> parts = new ArrayList<>();
+            for (int i = 0; i <= bounds.size(); i++) {
+                // First and last chunks are open-ended so scans of students missing from the roster still count
+                Long fromStudent = i == 0 ? null : bounds.get(i - 1);
+                Long untilStudent = i == bounds.size() ? null : bounds.get(i);
+                parts.add(executor.submit(() -> scan(start, end, fromStudent, untilStudent)));
+            }
+            Summary summary = new Summary();
+            for (Future<Summary> part : parts) {
+                summary.merge(part.get());
+            }
+            return summary;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Student numbers splitting the roster into roughly equal chunks
+    private List<Long> studentBounds(int chunks) {
+        try (Handle handle = jdbi.open()) {
+            List<Long> studentNos = handle.createQuery("SELECT StudentNo FROM students ORDER BY StudentNo")
+                    .mapTo(Long.class)
+                    .list();
+            List<Long> bounds = new ArrayList<>();
+            for (int i = 1; i < chunks && !studentNos.isEmpty(); i++) {
+                long bound = studentNos.get((int) ((long) studentNos.size() * i / chunks));
+                if (bounds.isEmpty() || bound > bounds.getLast()) {
+                    bounds.add(bound);
+                }
+            }
+            return bounds;
+        }
+    }
+
+    // Students in [fromStudent, untilStudent), either end open when null
+    private Summary scan(LocalDateTime start, LocalDateTime end, Long fromStudent, Long untilStudent) {
+        Pass pass = new Pass(start, end);
+        try (Handle handle = jdbi.open()) {
+            Query query = handle.createQuery("""
+                            SELECT a.StudentNo, a.Timestamp, a.Status, s.ProgramID, s.YearLevel
+                            FROM attendance a
+                            LEFT JOIN students s ON s.StudentNo = a.StudentNo
+                            WHERE a.Timestamp >= :from AND a.Timestamp < :until
+                            """
+                            + (fromStudent == null ? "" : " AND a.StudentNo >= :fromStudent")
+                            + (untilStudent == null ? "" : " AND a.StudentNo < :untilStudent")
+                            + " ORDER BY a.StudentNo, a.Timestamp, a.AttendanceID")
+                    .bind("from", Timestamp.valueOf(start.minusDays(LOOKAROUND_DAYS)))
+                    .bind("until", Timestamp.valueOf(end.plusDays(LOOKAROUND_DAYS)));
+            if (fromStudent != null) {
+                query.bind("fromStudent", fromStudent);
+            }
+            if (untilStudent != null) {
+                query.bind("untilStudent", untilStudent);
+            }
+            query.setFetchSize(fetchSize) // Forward-only cursor; never more than fetchSize rows in memory
+                    .map((rs, ctx) -> new Row(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), rs.getString(3),
+                            rs.getString(4), rs.getString(5)))
+                    .forEach(pass::accept);
+        }
+        pass.finishStudent();
+        return pass.summary;
+    }
+
+    // State for one chunk's pass: the totals so far and the student currently being read
+    private static class Pass {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Summary summary = new Summary();
+
+        private long studentNo = -1;
+        private String program;
+        private String yearLevel;
+        private LocalDateTime openLogin;
+        private final Set<LocalDate> studentDays = new HashSet<>(); // Days the current student scanned in range
+
+        Pass(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean owns(LocalDateTime time) {
+            return !time.isBefore(start) && time.isBefore(end);
+        }
+
+        void accept(Row row) {
+            summary.rows++;
+            if (row.studentNo() != studentNo) {
+                finishStudent();
+                studentNo = row.studentNo();
+                program = row.program() == null ? UNKNOWN : row.program();
+                yearLevel = row.yearLevel() == null ? UNKNOWN : row.yearLevel();
+            }
+
+            LocalDateTime time = row.time();
+            if (owns(time)) {
+                LocalDate day = time.toLocalDate();
+                ReportTotals dayTotals = summary.day(day);
+                dayTotals.scans++;
+                summary.program(program).scans++;
+                summary.yearLevel(yearLevel).scans++;
+                if (studentDays.add(day)) {
+                    dayTotals.students++;
+                }
+            }
+
+            if (AttendanceState.LOGGED_IN.equals(row.status())) {
+                if (openLogin != null) {
+                    unclosed(openLogin); // Logged in again without logging out
+                }
+                openLogin = time;
+            } else if (AttendanceState.LOGGED_OUT.equals(row.status())) {
+                if (openLogin == null) {
+                    if (owns(time)) {
+                        count(time.toLocalDate(), totals -> totals.orphanLogouts++);
+                    }
+                } else {
+                    if (owns(openLogin)) {
+                        long seconds = Duration.between(openLogin, time).getSeconds();
+                        count(openLogin.toLocalDate(), totals -> {
+                            totals.sessions++;
+                            totals.sessionSeconds += seconds;
+                        });
+                    }
+                    openLogin = null;
+                }
+            }
+        }
+
+        void finishStudent() {
+            if (openLogin != null) {
+                unclosed(openLogin);
+            }
+            if (!studentDays.isEmpty()) {
+                summary.program(program).students++;
+                summary.yearLevel(yearLevel).students++;
+            }
+            openLogin = null;
+            studentDays.clear();
+        }
+
+        private void unclosed(LocalDateTime login) {
+            if (owns(login)) {
+                count(login.toLocalDate(), totals -> totals.unclosedSessions++);
+            }
+        }
+
+        private void count(LocalDate day, Consumer<ReportTotals> update) {
+            update.accept(summary.day(day));
+            update.accept(summary.program(program));
+            update.accept(summary.yearLevel(yearLevel));
+        }
+    }
+
+    public static class Summary {
+        private final TreeMap<LocalDate, ReportTotals> days = new TreeMap<>();
+        private final TreeMap<String, ReportTotals> programs = new TreeMap<>();
+        private final TreeMap<String, ReportTotals> yearLevels = new TreeMap<>();
+        private long rows;
+
+        private ReportTotals day(LocalDate day) {
+            return days.computeIfAbsent(day, k -> new ReportTotals());
+        }
+
+        private ReportTotals program(String program) {
+            return programs.computeIfAbsent(program, k -> new ReportTotals());
+        }
+
+        private ReportTotals yearLevel(String yearLevel) {
+            return yearLevels.computeIfAbsent(yearLevel, k -> new ReportTotals());
+        }
+
+        // Chunks hold disjoint students, so every total, distinct students included, just adds up
+        private void merge(Summary other) {
+            other.days.forEach((day, totals) -> day(day).add(totals));
+            other.programs.forEach((program, totals) -> program(program).add(totals));
+            other.yearLevels.forEach((yearLevel, totals) -> yearLevel(yearLevel).add(totals));
+            rows += other.rows;
+        }
+
+        // Rows read, including the ones just outside the range used for pairing
+        public long getRows() {
+            return rows;
+        }
+
+        public int getDays() {
+            return days.size();
+        }
+
+        // Writes daily.csv, program.csv and year_level.csv into the directory
+        public void writeCsv(Path directory) {
+            try {
+                Files.createDirectories(directory);
+                write(directory.resolve("daily.csv"), "date", days);
+                write(directory.resolve("program.csv"), "program", programs);
+                write(directory.resolve("year_level.csv"), "year_level", yearLevels);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static <K> void write(Path file, String keyColumn, Map<K, ReportTotals> rows) throws IOException {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                out.println(ReportTotals.csvHeader(keyColumn));
+                rows.forEach((key, totals) -> out.println(totals.toCsv(key.toString())));
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.itsariadust.qrattendance;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Current login status of every student, seeded from the database at startup.
+// Decides whether a scan is a login or a logout without querying the latest record.
+public class AttendanceState {
+    static final String LOGGED_IN = "LOGGED IN";
+    static final String LOGGED_OUT = "LOGGED OUT";
+
+    private final ConcurrentHashMap<Long, String> statuses = new ConcurrentHashMap<>();
+
+    public void load(AttendanceDao attendanceDao) {
+        List<Attendance> latestRecords = attendanceDao.findLatestRecords();
+        statuses.clear();
+        for (Attendance latest : latestRecords) {
+            statuses.put(latest.getStudentNo(), latest.getStatus());
+        }
+    }
+
+    // Flip the student's status and return the new one. merge() is atomic per key,
+    // so two cameras seeing the same student at once get opposite statuses, never the same one twice.
+    public String toggle(long studentNo) {
+        return statuses.merge(studentNo, LOGGED_IN,
+                (current, ignored) -> LOGGED_IN.equals(current) ? LOGGED_OUT : LOGGED_IN);
+    }
+
+    public int size() {
+        return statuses.size();
+    }
+}
@@ -1,21 +1,269 @@
 package com.itsariadust.qrattendance;
 
+import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.IntConsumer;
 
+// Windowed view of the attendance log, newest first. Only pages around what the JTable asks for are held,
+// loaded in the background with keyset pagination on (Timestamp, AttendanceID), so memory stays bounded
+// however long the history gets. All state is confined to the EDT; the loader thread only runs queries.
+// A page seeks from the key of a loaded neighbour; the first and last pages from either end of the log. A page
+// with neither, after a jump down the scrollbar, seeks to a timestamp interpolated from the nearest known pages,
+// so rows far from both ends are placed approximately. Pages chained from that one form a region numbered
+// consistently within itself. Regions meeting may not line up, so one gives way and is reloaded from the other:
+// an estimated page arriving next to loaded ones, or else an estimated region next to one placed from an end.
+// The view is a snapshot up to one AttendanceID. Rows added after it are counted by polls and only shown
+// while the view follows the top, or when asked to; someone reading further down keeps their rows in place.
+// Belongs to one log window and is closed with it.
 public class AttendanceTableModel extends AbstractTableModel {
+    static final int PAGE_SIZE = 200;
+    static final int MAX_CACHED_PAGES = 32;
+
+    // Sparse index of where pages start and end, trimmed to the entries nearest the viewport
+    private static final int MAX_SPANS = 4096;
+
+    // Older requests are dropped first when scrolling outpaces the loader
+    private static final int MAX_PENDING_PAGES = 8;
+
+    // Shown in cells whose page hasn't arrived yet
+    static final String LOADING = "…";
+
+    // Server-side limit on any one log query, so an unselective filter can't hold a connection
+    private static final int QUERY_TIMEOUT_SECONDS = 10;
+
+    // AttendanceIDs below the newest one that polls keep recounting. MySQL hands out ids when rows are inserted
+    // but they become visible at commit, so a gate's scan or a synced batch can show up after newer ids have
+    // been counted. Covers twenty gates pushing a full sync batch at once.
+    static final long LATE_COMMIT_IDS = 10_000;
+
+    private record Boundary(Timestamp timestamp, long attendanceId) {}
+
+    // Keys of a loaded page's first and last rows (null for an empty page), and the region it was placed in
+    private record Span(Boundary first, Boundary last, int region) {}
+
+    // A row position whose timestamp is known, or still to be looked up when it's one end of the log
+    private record Landmark(int row, Timestamp timestamp) {}
+
+    private enum Seek { NEWEST, OLDEST, OLDER_THAN, NEWER_THAN, ESTIMATE }
+
+    // region is NEW_REGION for seeks that don't start from a loaded page
+    private record PageRequest(int page, int generation, AttendanceFilter filter, long upToId, Seek seek, int limit,
+                               Boundary from, int region, Landmark above, Landmark below) {}
+
+    private static final int NEW_REGION = -1;
+
     private final String[] columns = { "Record ID", "Student No.", "Timestamp", "Status" };
-    private List<Attendance> data = new ArrayList<>();
+    private final AttendanceDao attendanceDao;
+    private final QueryCanceller pageQuery = new QueryCanceller(QUERY_TIMEOUT_SECONDS);
+    private final QueryCanceller countQuery = new QueryCanceller(QUERY_TIMEOUT_SECONDS);
+
+    // Access-ordered so the least recently viewed page is evicted first
+    private final LinkedHashMap<Integer, List<Attendance>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Attendance>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // Keys of each page seen, so its neighbours can seek from them
+    private final TreeMap<Integer, Span> spans = new TreeMap<>();
+    // Live regions, and whether each was placed from an end of the log rather than estimated
+    private final Map<Integer, Boolean> regions = new HashMap<>();
+    private int nextRegion;
+    private final Set<Integer> pending = new HashSet<>();
+    private final BlockingDeque<PageRequest> requests = new LinkedBlockingDeque<>();
+
+    private AttendanceFilter filter = AttendanceFilter.NONE;
+    private int rowCount;
+    // Newest AttendanceID the shown rows go up to, and the newest one polls have counted
+    private long snapshotId;
+    private long lastAttendanceId;
+    // Matching rows up to settledId, which polls no longer recount, and up to lastAttendanceId as of the last poll
+    private long settledId;
+    private int settledRows;
+    private int polledRows;
+    // Matching rows counted by polls but not shown yet, mostly above the snapshot
+    private int newRows;
+    private boolean followNewRows = true;
+    private IntConsumer newRowsListener = count -> {};
+    // Bumped whenever rows shift or the filter changes, so results for the old row numbering are discarded
+    private volatile int generation;
+    private int pollingGeneration = -1;
+    private final Thread loader;
+    // Set once the window is gone; queries failing after that are the store or pool shutting down
+    private volatile boolean closed;
+
+    public AttendanceTableModel(AttendanceDao attendanceDao) {
+        this.attendanceDao = attendanceDao;
+        loader = new Thread(this::loadLoop, "log-pages");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // Stop loading and polling, abandoning any query still running. Called on the EDT.
+    public void close() {
+        closed = true;
+        generation++;
+        pageQuery.cancel();
+        countQuery.cancel();
+        clearPages();
+        loader.interrupt();
+    }
+
+    // Check for rows added since the last poll without touching the EDT; reports how many arrived
+    public void poll(IntConsumer onPolled) {
+        if (closed || pollingGeneration == generation) {
+            return; // Previous poll still running
+        }
+        int pollGeneration = generation;
+        pollingGeneration = pollGeneration;
+        AttendanceFilter pollFilter = filter;
+        long settledFrom = settledId;
+        Thread.ofVirtual().name("log-poll").start(() -> {
+            // Rows settle once LATE_COMMIT_IDS newer ids exist; the ones above that are counted afresh every time
+            long lastId;
+            long settleTo;
+            int settled;
+            int recent;
+            try {
+                lastId = attendanceDao.findLastAttendanceId();
+                settleTo = Math.max(settledFrom, lastId - LATE_COMMIT_IDS);
+                settled = settleTo > settledFrom
+                        ? attendanceDao.countRecordsBetween(pollFilter, settledFrom, settleTo, countQuery) : 0;
+                recent = lastId > settleTo
+                        ? attendanceDao.countRecordsBetween(pollFilter, settleTo, lastId, countQuery) : 0;
+            } catch (RuntimeException e) {
+                if (pollGeneration == generation && !closed) {
+                    e.printStackTrace(); // Cancelled polls are expected, anything else isn't
+                }
+                SwingUtilities.invokeLater(() -> {
+                    if (pollGeneration == generation) {
+                        pollingGeneration = -1;
+                        onPolled.accept(0);
+                    }
+                });
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (pollGeneration != generation) {
+                    return; // Filter changed or rows were shown while counting; the next poll counts again
+                }
+                pollingGeneration = -1;
+                settledId = settleTo;
+                settledRows += settled;
+                lastAttendanceId = lastId;
+                int total = settledRows + recent;
+                int counted = Math.max(0, total - polledRows);
+                polledRows = total;
+                // A late commit below the snapshot is counted here too; its page already holds it
+                newRows = Math.max(0, total - rowCount);
+                if (newRows == 0) {
+                    snapshotId = lastId; // Nothing matched, so the pages are still right up to here
+                } else if (followNewRows || snapshotId == 0) {
+                    showNewRows();
+                } else {
+                    newRowsListener.accept(newRows);
+                }
+                onPolled.accept(counted);
+            });
+        });
+    }
+
+    // Show only rows matching the filter, abandoning any query still running for the previous one
+    public void setFilter(AttendanceFilter newFilter, IntConsumer onCounted) {
+        if (newFilter.equals(filter)) {
+            return;
+        }
+        filter = newFilter;
+        generation++;
+        pageQuery.cancel();
+        countQuery.cancel();
+        clearPages();
+        rowCount = 0;
+        snapshotId = 0;
+        lastAttendanceId = 0;
+        settledId = 0;
+        settledRows = 0;
+        polledRows = 0;
+        newRows = 0;
+        newRowsListener.accept(0);
+        fireTableDataChanged();
+        poll(onCounted); // Counts every matching row, since nothing has been seen under this filter
+    }
+
+    public AttendanceFilter getFilter() {
+        return filter;
+    }
+
+    // Whether the view is at the top of the log, where new rows can be shown as they arrive
+    public void setFollowNewRows(boolean follow) {
+        followNewRows = follow;
+        if (follow && newRows > 0) {
+            showNewRows();
+        }
+    }
+
+    // Called on the EDT with the number of rows waiting to be shown, 0 once they are
+    public void setNewRowsListener(IntConsumer listener) {
+        newRowsListener = listener;
+    }
+
+    public int getNewRowCount() {
+        return newRows;
+    }
 
-    public void setData(List<Attendance> newData) {
-        this.data = newData;
-        fireTableDataChanged(); // Notify JTable to refresh
+    // Move the snapshot up to the last poll. New rows usually land at the top but synced ones can fall anywhere,
+    // so every cached page is stale.
+    public void showNewRows() {
+        if (newRows == 0) {
+            return;
+        }
+        int added = newRows;
+        newRows = 0;
+        snapshotId = lastAttendanceId;
+        rowCount += added;
+        generation++;
+        clearPages();
+        fireTableRowsInserted(0, added - 1);
+        fireTableRowsUpdated(0, rowCount - 1); // Cells below the insert now belong to other rows
+        newRowsListener.accept(0);
+    }
+
+    private void clearPages() {
+        pages.clear();
+        spans.clear();
+        regions.clear();
+        pending.clear();
+        requests.clear();
+    }
+
+    public long getLastAttendanceId() {
+        return lastAttendanceId;
+    }
+
+    // Rows currently held in memory, for diagnostics
+    public int getCachedRowCount() {
+        int rows = 0;
+        for (List<Attendance> page : pages.values()) {
+            rows += page.size();
+        }
+        return rows;
     }
 
     @Override
     public int getRowCount() {
-        return data.size();
+        return rowCount;
     }
 
     @Override
@@ -30,7 +278,19 @@ public class AttendanceTableModel extends AbstractTableModel {
 
     @Override
     public Object getValueAt(int row, int col) {
-        Attendance record = data.get(row);
+        int page = row / PAGE_SIZE;
+        List<Attendance> rows = pages.get(page);
+        requestPage(page + 1); // Prefetch both neighbours so scrolling either way finds them loaded
+        requestPage(page - 1);
+        if (rows == null) {
+            requestPage(page); // Last, so it is loaded first
+            return col == 0 ? LOADING : null;
+        }
+        int index = row % PAGE_SIZE;
+        if (index >= rows.size()) {
+            return null; // Rows deleted since the count was taken
+        }
+        Attendance record = rows.get(index);
         return switch (col) {
             case 0 -> record.getAttendanceId();
             case 1 -> record.getStudentNo();
@@ -39,5 +299,221 @@ public class AttendanceTableModel extends AbstractTableModel {
             default -> null;
         };
     }
-}
 
+    // The record behind a row, or null while its page is still loading
+    public Attendance getRecordAt(int row) {
+        List<Attendance> rows = pages.get(row / PAGE_SIZE);
+        int index = row % PAGE_SIZE;
+        return rows == null || index >= rows.size() ? null : rows.get(index);
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || page * PAGE_SIZE >= rowCount || pages.containsKey(page) || !pending.add(page)) {
+            return;
+        }
+        int lastPage = (rowCount - 1) / PAGE_SIZE;
+        Span above = spans.get(page - 1);
+        Span below = spans.get(page + 1);
+        PageRequest request;
+        if (page == 0) {
+            request = request(page, Seek.NEWEST, PAGE_SIZE, null, NEW_REGION, null, null);
+        } else if (above != null && above.last() != null) {
+            request = request(page, Seek.OLDER_THAN, PAGE_SIZE, above.last(), above.region(), null, null);
+        } else if (page == lastPage) {
+            request = request(page, Seek.OLDEST, rowCount - page * PAGE_SIZE, null, NEW_REGION, null, null);
+        } else if (below != null && below.first() != null) {
+            request = request(page, Seek.NEWER_THAN, PAGE_SIZE, below.first(), below.region(), null, null);
+        } else {
+            // Nearest rows with a known timestamp on either side, else the ends of the log
+            Map.Entry<Integer, Span> before = spans.floorEntry(page - 1);
+            while (before != null && before.getValue().last() == null) {
+                before = spans.lowerEntry(before.getKey());
+            }
+            Map.Entry<Integer, Span> after = spans.ceilingEntry(page + 1);
+            while (after != null && after.getValue().first() == null) {
+                after = spans.higherEntry(after.getKey());
+            }
+            Landmark aboveMark = before == null ? new Landmark(0, null)
+                    : new Landmark((before.getKey() + 1) * PAGE_SIZE - 1, before.getValue().last().timestamp());
+            Landmark belowMark = after == null ? new Landmark(rowCount - 1, null)
+                    : new Landmark(after.getKey() * PAGE_SIZE, after.getValue().first().timestamp());
+            request = request(page, Seek.ESTIMATE, PAGE_SIZE, null, NEW_REGION, aboveMark, belowMark);
+        }
+        requests.offerFirst(request);
+        while (requests.size() > MAX_PENDING_PAGES) {
+            PageRequest stale = requests.pollLast();
+            if (stale != null) {
+                pending.remove(stale.page());
+            }
+        }
+    }
+
+    private PageRequest request(int page, Seek seek, int limit, Boundary from, int region, Landmark above,
+                                Landmark below) {
+        return new PageRequest(page, generation, filter, snapshotId, seek, limit, from, region, above, below);
+    }
+
+    // Serves the most recent request first, since that's the part of the table being looked at
+    private void loadLoop() {
+        while (!closed) {
+            PageRequest request;
+            try {
+                request = requests.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Attendance> rows;
+            try {
+                rows = load(request);
+            } catch (RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> {
+                    if (request.generation() == generation) {
+                        e.printStackTrace();
+                        pending.remove(request.page()); // Retried on next repaint
+                    }
+                });
+                continue;
+            }
+            SwingUtilities.invokeLater(() -> pageLoaded(request, rows));
+        }
+    }
+
+    // Runs on the loader thread
+    private List<Attendance> load(PageRequest request) {
+        return switch (request.seek()) {
+            case NEWEST -> seek(request, null, false);
+            case OLDEST -> seek(request, null, true);
+            case OLDER_THAN -> seek(request, request.from(), false);
+            case NEWER_THAN -> seek(request, request.from(), true);
+            case ESTIMATE -> {
+                Timestamp timestamp = estimate(request);
+                yield timestamp == null ? List.of() : seek(request, new Boundary(timestamp, Long.MAX_VALUE), false);
+            }
+        };
+    }
+
+    // Up to the request's limit of rows from the key onwards, newest first. Rows after the snapshot are skipped
+    // here rather than bounded in SQL, where an AttendanceID range can lure the optimizer off idx_attendance_time;
+    // they are few, and the next seek starts after them.
+    private List<Attendance> seek(PageRequest request, Boundary from, boolean newer) {
+        List<Attendance> rows = new ArrayList<>(request.limit());
+        Boundary key = from;
+        while (rows.size() < request.limit() && request.generation() == generation) {
+            int wanted = request.limit() - rows.size();
+            Timestamp timestamp = key == null ? null : key.timestamp();
+            long attendanceId = key == null ? 0 : key.attendanceId();
+            List<Attendance> batch = newer
+                    ? attendanceDao.findPageBefore(request.filter(), timestamp, attendanceId, wanted, pageQuery)
+                    : attendanceDao.findPageAfter(request.filter(), timestamp, attendanceId, wanted, pageQuery);
+            for (Attendance record : batch) {
+                if (record.getAttendanceId() <= request.upToId()) {
+                    rows.add(record);
+                }
+            }
+            if (batch.size() < wanted) {
+                break; // Reached the end of the log
+            }
+            Attendance last = batch.getLast();
+            key = new Boundary(last.getTimestamp(), last.getAttendanceId());
+        }
+        if (newer) {
+            rows = rows.reversed();
+        }
+        return rows;
+    }
+
+    // Timestamp the request's first row is likely to have, interpolated between the landmarks around it
+    private Timestamp estimate(PageRequest request) {
+        Timestamp newest = request.above().timestamp();
+        if (newest == null) {
+            List<Attendance> top = attendanceDao.findPageAfter(request.filter(), null, 0, 1, pageQuery);
+            if (top.isEmpty()) {
+                return null;
+            }
+            newest = top.getFirst().getTimestamp();
+        }
+        Timestamp oldest = request.below().timestamp();
+        if (oldest == null) {
+            List<Attendance> bottom = attendanceDao.findPageBefore(request.filter(), null, 0, 1, pageQuery);
+            if (bottom.isEmpty()) {
+                return null;
+            }
+            oldest = bottom.getFirst().getTimestamp();
+        }
+        int rows = request.below().row() - request.above().row();
+        if (rows <= 0) {
+            return newest;
+        }
+        double share = (double) (request.page() * PAGE_SIZE - request.above().row()) / rows;
+        return new Timestamp(newest.getTime() - Math.round((newest.getTime() - oldest.getTime()) * share));
+    }
+
+    private void pageLoaded(PageRequest request, List<Attendance> rows) {
+        if (request.generation() != generation) {
+            return; // Rows shifted while this page was loading
+        }
+        int page = request.page();
+        pending.remove(page);
+        int first = page * PAGE_SIZE;
+        int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+        int region = request.region();
+        if (region == NEW_REGION) {
+            if (request.seek() == Seek.ESTIMATE && (spans.containsKey(page - 1) || spans.containsKey(page + 1))) {
+                fireTableRowsUpdated(first, last);
+                return; // A neighbour arrived first; asked for again on repaint and seeked from it
+            }
+            region = nextRegion++;
+            regions.put(region, request.seek() != Seek.ESTIMATE);
+        } else if (!regions.containsKey(region)) {
+            fireTableRowsUpdated(first, last);
+            return; // Seeked from a page that has since been dropped
+        }
+        pages.put(page, rows);
+        spans.put(page, rows.isEmpty() ? new Span(null, null, region) : new Span(key(rows.getFirst()),
+                key(rows.getLast()), region));
+        trimSpans(page);
+        for (int neighbour : new int[]{page - 1, page + 1}) {
+            Span span = spans.get(neighbour);
+            if (span != null && span.region() != region) {
+                boolean keepNeighbour = regions.get(span.region()) && !regions.get(region);
+                dropRegion(keepNeighbour ? region : span.region());
+                if (keepNeighbour) {
+                    return;
+                }
+            }
+        }
+        if (last >= first) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    private static Boundary key(Attendance record) {
+        return new Boundary(record.getTimestamp(), record.getAttendanceId());
+    }
+
+    private void dropRegion(int region) {
+        regions.remove(region);
+        Iterator<Map.Entry<Integer, Span>> it = spans.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Span> entry = it.next();
+            if (entry.getValue().region() == region) {
+                int page = entry.getKey(); // Read first: TreeMap reuses a removed entry for its successor
+                it.remove();
+                if (pages.remove(page) != null) {
+                    fireTableRowsUpdated(page * PAGE_SIZE, Math.min(rowCount, (page + 1) * PAGE_SIZE) - 1);
+                }
+            }
+        }
+    }
+
+    private void trimSpans(int page) {
+        while (spans.size() > MAX_SPANS) {
+            int lowest = spans.firstKey();
+            int highest = spans.lastKey();
+            spans.remove(page - lowest > highest - page ? lowest : highest);
+        }
+    }
+}
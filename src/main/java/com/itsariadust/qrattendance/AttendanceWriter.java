@@ -0,0 +1,178 @@
+package com.itsariadust.qrattendance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Write-behind queue for attendance rows. Rows are flushed with one batch insert once
+// batchSize rows are waiting or the oldest has waited flushMillis, whichever comes first.
+// submit() blocks when the queue is full, which pushes back on the scan path if the database is slow.
+// A batch that keeps failing is retried row by row, and rows that still can't be inserted are appended to a
+// dead-letter CSV (StudentNo,Timestamp,Status) instead of holding up every scan behind them.
+public class AttendanceWriter {
+    private static final long RETRY_MILLIS = 1000;
+    private static final int MAX_ATTEMPTS = 5; // 1s, 2s, 4s and 8s apart
+    private static final long SHUTDOWN_WAIT_MILLIS = 10000;
+
+    private final AttendanceDao attendanceDao;
+    private final ScanMetrics metrics;
+    private final AttendanceEventBus events;
+    private final int batchSize;
+    private final long flushMillis;
+    private final BlockingQueue<Attendance> queue;
+    private final Path deadLetterFile;
+
+    // Batch currently being assembled or retried; only the flusher thread touches it while it runs
+    private final List<Attendance> batch;
+    private final Thread flusher;
+    private volatile boolean running;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private volatile long maxFlushNanos;
+    private volatile int maxBatch;
+
+    public AttendanceWriter(AttendanceDao attendanceDao, int batchSize, long flushMillis, int capacity,
+                            Path deadLetterFile, ScanMetrics metrics, AttendanceEventBus events) {
+        this.attendanceDao = attendanceDao;
+        this.metrics = metrics;
+        this.events = events;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.deadLetterFile = deadLetterFile;
+        this.batch = new ArrayList<>(batchSize);
+        this.flusher = new Thread(this::flushLoop, "attendance-writer");
+    }
+
+    public void start() {
+        running = true;
+        flusher.start();
+    }
+
+    public void submit(Attendance record) throws InterruptedException {
+        queue.put(record);
+    }
+
+    // Stop the flusher thread and write out whatever is left
+    public void shutdown() {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(SHUTDOWN_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Attendance> remaining = new ArrayList<>();
+        if (flusher.isAlive()) {
+            // Stuck in an insert; its batch stays its own, only rows it hasn't taken from the queue are written here
+            System.out.println("Attendance writer still flushing after " + SHUTDOWN_WAIT_MILLIS + "ms, leaving its batch to it");
+        } else {
+            remaining.addAll(batch);
+        }
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty() && !flush(remaining)) {
+            writeRows(remaining);
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Attendance first = queue.take();
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Attendance next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                long pause = RETRY_MILLIS;
+                for (int attempt = 1; !flush(batch); attempt++) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        writeRows(batch);
+                        break;
+                    }
+                    Thread.sleep(pause); // Keep the batch; the queue fills up and slows submitters meanwhile
+                    pause *= 2;
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                return; // shutdown() flushes the batch and the rest of the queue
+            }
+        }
+    }
+
+    // Last resort for rows whose batch keeps failing: one insert each, so a single bad row can't sink the rest
+    private void writeRows(List<Attendance> rows) {
+        for (Attendance row : rows) {
+            if (!flush(List.of(row))) {
+                deadLetter(row);
+            }
+        }
+    }
+
+    private void deadLetter(Attendance row) {
+        deadLettered.increment();
+        String line = row.getStudentNo() + "," + row.getTimestamp() + "," + row.getStatus() + System.lineSeparator();
+        try {
+            Path parent = deadLetterFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(deadLetterFile, line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            System.out.println("Could not record attendance, kept in " + deadLetterFile + ": " + line.trim());
+        } catch (IOException e) {
+            System.out.println("Could not record attendance, lost: " + line.trim() + " (" + e.getMessage() + ")");
+        }
+    }
+
+    private boolean flush(List<Attendance> batch) {
+        long start = System.nanoTime();
+        try {
+            attendanceDao.insertBatch(batch);
+        } catch (RuntimeException e) {
+            failures.increment();
+            metrics.dbError();
+            e.printStackTrace();
+            return false;
+        }
+        long elapsed = System.nanoTime() - start;
+        metrics.histogram(ScanMetrics.Stage.INSERT).recordNanos(elapsed);
+
+        batches.increment();
+        rows.add(batch.size());
+        flushNanos.add(elapsed);
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        maxBatch = Math.max(maxBatch, batch.size());
+        events.publish(batch);
+        return true;
+    }
+
+    public String stats() {
+        long b = batches.sum(), r = rows.sum();
+        return String.format("attendance writer batches=%d rows=%d avgBatch=%.1f maxBatch=%d avgFlushMs=%.2f maxFlushMs=%.2f failures=%d deadLettered=%d queued=%d",
+                b, r, b == 0 ? 0 : (double) r / b, maxBatch,
+                b == 0 ? 0 : flushNanos.sum() / 1e6 / b, maxFlushNanos / 1e6,
+                failures.sum(), deadLettered.sum(), queue.size());
+    }
+}
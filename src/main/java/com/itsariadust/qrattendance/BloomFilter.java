@@ -0,0 +1,84 @@
+package com.itsariadust.qrattendance;
+
+// Probabilistic set of long keys: mightContain never misses a key that was put, and wrongly reports a key
+// that wasn't with roughly the configured probability, as long as no more than the expected number is added.
+// Keys can't be removed; callers rebuild it when too many stale keys have piled up.
+class BloomFilter {
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final int expected;
+    private int insertions;
+
+    BloomFilter(int expected, double falsePositiveRate) {
+        this.expected = Math.max(1, expected);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-this.expected * Math.log(falsePositiveRate) / (ln2 * ln2));
+        bits = new long[(int) Math.max(1, (m + 63) / 64)];
+        bitCount = bits.length * 64L;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / this.expected * ln2));
+    }
+
+    // Counts the key as an insertion only when it set a new bit, so re-adding known keys is free
+    void put(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                changed = true;
+            }
+        }
+        if (changed) {
+            insertions++;
+        }
+    }
+
+    boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int getExpected() {
+        return expected;
+    }
+
+    int getInsertions() {
+        return insertions;
+    }
+
+    long getMemoryBytes() {
+        return bits.length * 8L;
+    }
+
+    // False positive rate at the current fill, (1 - e^(-kn/m))^k
+    double estimatedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions / bitCount), hashCount);
+    }
+
+    String stats() {
+        return String.format("bloom filter keys=%d/%d bits=%d hashes=%d bytes=%d fpp=%.2e",
+                insertions, expected, bitCount, hashCount, getMemoryBytes(), estimatedFalsePositiveRate());
+    }
+
+    // MurmurHash3 finalizer; sequential student numbers still land on unrelated bits
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
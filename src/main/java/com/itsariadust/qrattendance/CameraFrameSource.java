@@ -0,0 +1,43 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+public class CameraFrameSource implements FrameSource {
+    private final int cameraID;
+    private final VideoCapture camera;
+
+    public CameraFrameSource(int cameraID, int width, int height) {
+        this.cameraID = cameraID;
+        this.camera = new VideoCapture(cameraID);
+        if (camera.isOpened()) {
+            camera.set(Videoio.CAP_PROP_FRAME_WIDTH, width);
+            camera.set(Videoio.CAP_PROP_FRAME_HEIGHT, height);
+        }
+    }
+
+    public boolean isOpened() {
+        return camera.isOpened();
+    }
+
+    @Override
+    public String getName() {
+        return "Camera " + cameraID;
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        return camera.read(frame);
+    }
+
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        camera.release();
+    }
+}
@@ -0,0 +1,108 @@
+package com.itsariadust.qrattendance;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded HikariCP pool behind Jdbi, configured from the same .env as the rest of the app.
+// MySQL prepared statements are cached server-side so repeated DAO queries skip re-parsing.
+public class ConnectionPool implements MetricsTrackerFactory, IMetricsTracker {
+    private final HikariDataSource dataSource;
+    private volatile PoolStats poolStats;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private volatile long maxAcquireNanos;
+    private final LongAdder usageMillis = new LongAdder();
+    private volatile long maxUsageMillis;
+    private final LongAdder timeouts = new LongAdder();
+
+    // cursorFetch streams queries given a fetch size through a server-side cursor, for the attendance report.
+    // Connector/J can only do that with server-side prepared statements, so it overrides DB_SERVER_PREP_STMTS.
+    public ConnectionPool(Dotenv dotenv, boolean cursorFetch) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("qrattendance");
+        config.setJdbcUrl(dotenv.get("DB_URL"));
+        config.setUsername(dotenv.get("DB_USERNAME"));
+        config.setPassword(dotenv.get("DB_PASSWORD"));
+        config.setMaximumPoolSize(Integer.parseInt(dotenv.get("DB_POOL_SIZE", "10")));
+        config.setMinimumIdle(Integer.parseInt(dotenv.get("DB_POOL_MIN_IDLE", "2")));
+        config.setConnectionTimeout(Long.parseLong(dotenv.get("DB_POOL_TIMEOUT_MS", "5000")));
+        config.setValidationTimeout(Long.parseLong(dotenv.get("DB_POOL_VALIDATION_TIMEOUT_MS", "2000")));
+        config.setKeepaliveTime(Long.parseLong(dotenv.get("DB_POOL_KEEPALIVE_MS", "120000")));
+        config.setMaxLifetime(Long.parseLong(dotenv.get("DB_POOL_MAX_LIFETIME_MS", "1800000")));
+
+        // MySQL Connector/J statement caching
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", dotenv.get("DB_SERVER_PREP_STMTS", "true"));
+        config.addDataSourceProperty("prepStmtCacheSize", dotenv.get("DB_PREP_STMT_CACHE_SIZE", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", dotenv.get("DB_PREP_STMT_CACHE_SQL_LIMIT", "2048"));
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        if (cursorFetch) {
+            config.addDataSourceProperty("useCursorFetch", "true");
+        }
+
+        // Start even when MySQL is down; the scan path runs off the local store until it's back
+        config.setInitializationFailTimeout(-1);
+
+        // Pool state is also published as a HikariPoolMXBean over JMX
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(this);
+        dataSource = new HikariDataSource(config);
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public void close() {
+        dataSource.close();
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return this;
+    }
+
+    // Time a caller waited to get a connection out of the pool
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquisitions.increment();
+        acquireNanos.add(elapsedAcquiredNanos);
+        if (elapsedAcquiredNanos > maxAcquireNanos) {
+            maxAcquireNanos = elapsedAcquiredNanos;
+        }
+    }
+
+    // Time a connection was held before being returned
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usageMillis.add(elapsedBorrowedMillis);
+        if (elapsedBorrowedMillis > maxUsageMillis) {
+            maxUsageMillis = elapsedBorrowedMillis;
+        }
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public String stats() {
+        long n = acquisitions.sum();
+        PoolStats pool = poolStats;
+        return String.format("connection pool active=%d idle=%d total=%d waiting=%d acquisitions=%d avgWaitMs=%.3f maxWaitMs=%.3f avgUsageMs=%.1f maxUsageMs=%d timeouts=%d",
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getTotalConnections(),
+                pool == null ? 0 : pool.getPendingThreads(),
+                n, n == 0 ? 0 : acquireNanos.sum() / 1e6 / n, maxAcquireNanos / 1e6,
+                n == 0 ? 0 : (double) usageMillis.sum() / n, maxUsageMillis, timeouts.sum());
+    }
+}
@@ -0,0 +1,32 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+
+import java.nio.file.Path;
+
+// Where a ScanPipeline gets its frames from: a live camera or recorded footage
+public interface FrameSource {
+    String getName();
+
+    // Fill the frame with the next image; false if none was available this time
+    boolean read(Mat frame);
+
+    // True once a finite source (a file or folder) has delivered its last frame
+    boolean isFinished();
+
+    void close();
+
+    // Parse "camera:<index>", "video:<file>" or "images:<folder>"; a bare number is a camera index
+    static FrameSource parse(String spec, int width, int height) {
+        String trimmed = spec.trim();
+        int colon = trimmed.indexOf(':');
+        String kind = colon < 0 ? "camera" : trimmed.substring(0, colon);
+        String target = colon < 0 ? trimmed : trimmed.substring(colon + 1);
+        return switch (kind) {
+            case "camera" -> new CameraFrameSource(Integer.parseInt(target), width, height);
+            case "video" -> new VideoFileFrameSource(Path.of(target));
+            case "images" -> new ImageDirectoryFrameSource(Path.of(target));
+            default -> throw new IllegalArgumentException("Unknown frame source: " + spec);
+        };
+    }
+}
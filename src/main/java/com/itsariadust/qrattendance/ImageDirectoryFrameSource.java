@@ -0,0 +1,65 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Replays a folder of still images in file name order, one image per frame
+public class ImageDirectoryFrameSource implements FrameSource {
+    private final Path directory;
+    private final List<Path> images;
+    private int next;
+
+    public ImageDirectoryFrameSource(Path directory) {
+        this.directory = directory;
+        try (Stream<Path> files = Files.list(directory)) {
+            this.images = files
+                    .filter(ImageDirectoryFrameSource::isImage)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list images in " + directory, e);
+        }
+    }
+
+    private static boolean isImage(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".bmp");
+    }
+
+    @Override
+    public String getName() {
+        return directory.getFileName().toString();
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        while (next < images.size()) {
+            Mat image = Imgcodecs.imread(images.get(next++).toString());
+            try {
+                if (!image.empty()) {
+                    image.copyTo(frame);
+                    return true;
+                }
+            } finally {
+                image.release();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return next >= images.size();
+    }
+
+    @Override
+    public void close() {
+    }
+}
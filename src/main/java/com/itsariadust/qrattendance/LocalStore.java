@@ -0,0 +1,98 @@
+package com.itsariadust.qrattendance;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.reflect.BeanMapper;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+
+import java.util.UUID;
+
+// Embedded H2 copy of the roster and of this node's attendance rows.
+// The scan path reads and writes here at local-disk latency; RemoteSync moves data to and from MySQL.
+// Tables mirror the MySQL ones (minus the Picture BLOB), so StudentDao and AttendanceDao work against both.
+// Each store has a random gate id, created with it, that tags the rows it pushes to MySQL.
+public class LocalStore {
+    private final JdbcConnectionPool connections;
+    private final Jdbi jdbi;
+    private final String gateId;
+
+    public LocalStore(String path) {
+        // Closed by the app's shutdown hook after the writer's final flush, not by H2's own exit hook
+        this(JdbcConnectionPool.create("jdbc:h2:file:" + path + ";MODE=MySQL;DB_CLOSE_ON_EXIT=FALSE", "sa", ""));
+    }
+
+    // In-memory store that disappears with the process, for replays and tests that mustn't touch the gate's data
+    public static LocalStore scratch(String name) {
+        return new LocalStore(JdbcConnectionPool.create("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+    }
+
+    private LocalStore(JdbcConnectionPool connections) {
+        this.connections = connections;
+        jdbi = Jdbi.create(connections);
+        jdbi.installPlugin(new SqlObjectPlugin());
+        jdbi.registerRowMapper(BeanMapper.factory(Students.class));
+        jdbi.registerRowMapper(BeanMapper.factory(Attendance.class));
+        createSchema();
+        gateId = loadGateId();
+    }
+
+    private void createSchema() {
+        try (Handle handle = jdbi.open()) {
+            handle.execute("""
+                    CREATE TABLE IF NOT EXISTS students (
+                        StudentNo BIGINT PRIMARY KEY,
+                        FirstName VARCHAR(100),
+                        MiddleName VARCHAR(100),
+                        LastName VARCHAR(100),
+                        ProgramID VARCHAR(50),
+                        YearLevel VARCHAR(20)
+                    )
+                    """);
+            handle.execute("""
+                    CREATE TABLE IF NOT EXISTS attendance (
+                        AttendanceID BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        StudentNo BIGINT NOT NULL,
+                        Timestamp TIMESTAMP NOT NULL,
+                        Status VARCHAR(20) NOT NULL,
+                        Synced BOOLEAN DEFAULT FALSE NOT NULL
+                    )
+                    """);
+            handle.execute("CREATE INDEX IF NOT EXISTS idx_attendance_synced ON attendance (Synced, AttendanceID)");
+            // Each student's latest scan, by Timestamp like the MySQL index of the same name
+            handle.execute("DROP INDEX IF EXISTS idx_attendance_student");
+            handle.execute("CREATE INDEX IF NOT EXISTS idx_attendance_student_time ON attendance (StudentNo, Timestamp)");
+            handle.execute("CREATE TABLE IF NOT EXISTS gate (GateID VARCHAR(36) NOT NULL)");
+        }
+    }
+
+    // Kept with the rows rather than in config: a new store restarts AttendanceID, so it must get a new id too
+    private String loadGateId() {
+        LocalStoreDao dao = getLocalStoreDao();
+        return dao.findGateId().orElseGet(() -> {
+            String created = UUID.randomUUID().toString();
+            dao.insertGateId(created);
+            return created;
+        });
+    }
+
+    public String getGateId() {
+        return gateId;
+    }
+
+    public StudentDao getStudentDao() {
+        return jdbi.onDemand(StudentDao.class);
+    }
+
+    public AttendanceDao getAttendanceDao() {
+        return jdbi.onDemand(AttendanceDao.class);
+    }
+
+    public LocalStoreDao getLocalStoreDao() {
+        return jdbi.onDemand(LocalStoreDao.class);
+    }
+
+    public void close() {
+        connections.dispose();
+    }
+}
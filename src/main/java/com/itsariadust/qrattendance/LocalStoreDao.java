@@ -0,0 +1,81 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.sqlobject.statement.*;
+import org.jdbi.v3.sqlobject.customizer.*;
+import org.jdbi.v3.sqlobject.transaction.Transaction;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+// Queries that only exist on the embedded local store: sync bookkeeping and roster replacement
+public interface LocalStoreDao {
+	@SqlQuery("""
+			SELECT * FROM attendance
+            WHERE Synced = FALSE
+            ORDER BY AttendanceID
+            LIMIT :limit
+			""")
+	List<Attendance> findUnsynced(@Bind("limit") int limit);
+
+	@SqlQuery("""
+			SELECT COUNT(*) FROM attendance WHERE Synced = FALSE
+			""")
+	long countUnsynced();
+
+	@SqlUpdate("""
+			UPDATE attendance SET Synced = TRUE WHERE AttendanceID IN (<ids>)
+			""")
+	void markSynced(@BindList("ids") List<Long> ids);
+
+	// Synced rows older than the cutoff. Each student's latest row stays, since it seeds the login state
+	// when MySQL is unreachable at startup.
+	@SqlUpdate("""
+			DELETE FROM attendance
+            WHERE Synced = TRUE AND Timestamp < :before
+            AND AttendanceID NOT IN (
+                SELECT AttendanceID FROM (
+                    SELECT AttendanceID,
+                        ROW_NUMBER() OVER (PARTITION BY StudentNo ORDER BY Timestamp DESC, AttendanceID DESC) AS Position
+                    FROM attendance
+                ) ranked
+                WHERE Position = 1
+            )
+			""")
+	int deleteSyncedBefore(@Bind("before") Timestamp before);
+
+	@SqlQuery("""
+			SELECT GateID FROM gate
+			""")
+	Optional<String> findGateId();
+
+	@SqlUpdate("""
+			INSERT INTO gate (GateID) VALUES (:gateId)
+			""")
+	void insertGateId(@Bind("gateId") String gateId);
+
+	@SqlUpdate("""
+			DELETE FROM students
+			""")
+	void deleteAllStudents();
+
+	@SqlBatch("""
+			INSERT INTO students (StudentNo, FirstName, MiddleName, LastName, ProgramID, YearLevel)
+            VALUES(
+                :studentNo,
+                :firstName,
+                :middleName,
+                :lastName,
+                :programId,
+                :yearLevel
+            )
+			""")
+	void insertStudents(@BindBean List<Students> students);
+
+	// Swap in a fresh copy of the roster in one local transaction
+	@Transaction
+	default void replaceStudents(List<Students> students) {
+		deleteAllStudents();
+		insertStudents(students);
+	}
+}
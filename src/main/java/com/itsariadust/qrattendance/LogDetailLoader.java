@@ -0,0 +1,102 @@
+package com.itsariadust.qrattendance;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Loads the log window's detail panel (student details and photo) off the EDT.
+// Only the latest selection is shown: loads the selection has moved past are cancelled or discarded, and the
+// rows around it are prefetched into the roster and photo caches so arrowing through the log finds them ready.
+class LogDetailLoader {
+    record Detail(ArrayList<String> info, ImageIcon photo) {}
+
+    // Rows prefetched on each side of the selection
+    private static final int PREFETCH_ROWS = 2;
+
+    private final QRAttendance qrAttendance;
+    private final StudentRoster roster;
+    private final PhotoCache photoCache;
+
+    // Two workers, so a slow photo fetch for one row doesn't hold up the next selection entirely
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "log-detail");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // EDT only
+    private long selection;
+    private Future<?> current;
+    private final List<Future<?>> prefetches = new ArrayList<>();
+
+    LogDetailLoader(QRAttendance qrAttendance, StudentRoster roster, PhotoCache photoCache) {
+        this.qrAttendance = qrAttendance;
+        this.roster = roster;
+        this.photoCache = photoCache;
+    }
+
+    // Called on the EDT; onLoaded runs on the EDT unless the selection has changed by then
+    void load(Attendance selected, List<Attendance> neighbours, Consumer<Detail> onLoaded) {
+        long request = ++selection;
+        cancelPending();
+        current = executor.submit(() -> {
+            Detail detail = detail(selected);
+            SwingUtilities.invokeLater(() -> {
+                if (request == selection && detail != null) {
+                    onLoaded.accept(detail);
+                }
+            });
+        });
+        // Queued behind the selection itself, so they only use time it doesn't need
+        for (Attendance neighbour : neighbours) {
+            prefetches.add(executor.submit(() -> detail(neighbour)));
+        }
+    }
+
+    // Records on both sides of a row that are already loaded, nearest first
+    static List<Attendance> neighbours(AttendanceTableModel model, int row) {
+        List<Attendance> neighbours = new ArrayList<>();
+        for (int distance = 1; distance <= PREFETCH_ROWS; distance++) {
+            for (int neighbour : new int[]{row + distance, row - distance}) {
+                if (neighbour >= 0 && neighbour < model.getRowCount()) {
+                    Attendance record = model.getRecordAt(neighbour);
+                    if (record != null) {
+                        neighbours.add(record);
+                    }
+                }
+            }
+        }
+        return neighbours;
+    }
+
+    void shutdown() {
+        selection++;
+        executor.shutdownNow();
+    }
+
+    // Queued work for an old selection never starts; a load already running finishes but isn't shown
+    private void cancelPending() {
+        if (current != null) {
+            current.cancel(false);
+        }
+        for (Future<?> prefetch : prefetches) {
+            prefetch.cancel(false);
+        }
+        prefetches.clear();
+    }
+
+    private Detail detail(Attendance attendance) {
+        try {
+            ArrayList<String> info = qrAttendance.getAttendanceInfo(roster, attendance);
+            ImageIcon photo = photoCache.get(attendance.getStudentNo(), StudentPhotos.THUMB_SIZE, StudentPhotos.THUMB_SIZE);
+            return new Detail(info, photo);
+        } catch (RuntimeException e) {
+            System.out.println("Could not load details for attendance " + attendance.getAttendanceId() + ": " + e);
+            return null;
+        }
+    }
+}
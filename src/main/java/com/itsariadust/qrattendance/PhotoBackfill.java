@@ -0,0 +1,91 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.Jdbi;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Fills in the pre-sized picture copies for students whose picture was stored before they existed.
+// Students are walked in key order a page at a time; workers fetch and resize one picture each, and a page's
+// updates are committed together. Only rows still missing their copies are picked up, so a stopped run
+// continues where it left off when started again.
+public class PhotoBackfill {
+    private record Result(long studentNo, StudentPhotos.Variants variants) {}
+
+    private final Jdbi jdbi;
+    private final StudentDao studentDao;
+    private final int threads;
+    private final int pageSize;
+
+    public PhotoBackfill(Jdbi jdbi, int threads, int pageSize) {
+        this.jdbi = jdbi;
+        this.studentDao = jdbi.onDemand(StudentDao.class);
+        this.threads = threads;
+        this.pageSize = pageSize;
+    }
+
+    // With all set, every picture is redone, e.g. after the display sizes change
+    public void run(boolean all) throws InterruptedException {
+        long start = System.nanoTime();
+        long done = 0;
+        long unreadable = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long after = Long.MIN_VALUE;
+            while (true) {
+                List<Long> page = studentDao.findStudentsMissingVariants(after, all, pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                after = page.getLast();
+
+                List<Future<Result>> futures = new ArrayList<>(page.size());
+                for (long studentNo : page) {
+                    futures.add(executor.submit(() -> new Result(studentNo, variants(studentNo))));
+                }
+                List<Long> studentNos = new ArrayList<>(page.size());
+                List<byte[]> displays = new ArrayList<>(page.size());
+                List<byte[]> thumbs = new ArrayList<>(page.size());
+                for (Future<Result> future : futures) {
+                    Result result = future.get();
+                    if (result.variants() == null) {
+                        unreadable++; // Left as is; still served from the original
+                        continue;
+                    }
+                    studentNos.add(result.studentNo());
+                    displays.add(result.variants().display());
+                    thumbs.add(result.variants().thumb());
+                }
+                if (!studentNos.isEmpty()) {
+                    jdbi.useTransaction(handle -> handle.attach(StudentDao.class)
+                            .updatePictureVariants(studentNos, displays, thumbs));
+                }
+                done += studentNos.size();
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Backfilled %d pictures (%.1f/s), %d unreadable, up to student %d%n",
+                        done, done / seconds, unreadable, after);
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.printf("Backfill finished: %d pictures, %d unreadable in %.1fs%n",
+                done, unreadable, (System.nanoTime() - start) / 1e9);
+    }
+
+    private StudentPhotos.Variants variants(long studentNo) {
+        try {
+            BufferedImage picture = StudentPhotos.decode(studentDao.findPicture(Long.toString(studentNo)));
+            return picture == null ? null : StudentPhotos.variants(picture);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
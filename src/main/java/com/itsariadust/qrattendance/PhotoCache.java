@@ -0,0 +1,149 @@
+package com.itsariadust.qrattendance;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+// LRU cache of decoded, pre-scaled student photos bounded by an estimated byte budget.
+// Entries are keyed by student and target size since the scanner and log window use different sizes.
+// Pictures live only in MySQL; while it is known to be unreachable a miss returns no photo straight away
+// instead of waiting out the connection timeout.
+public class PhotoCache {
+    private record Key(long studentNo, int width, int height) {}
+
+    private final StudentDao studentDao;
+    private final BooleanSupplier online;
+    private final long maxBytes;
+    private long usedBytes;
+
+    // Access-ordered so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, ImageIcon> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public PhotoCache(StudentDao studentDao, long maxBytes) {
+        this(studentDao, maxBytes, () -> true);
+    }
+
+    public PhotoCache(StudentDao studentDao, long maxBytes, BooleanSupplier online) {
+        this.studentDao = studentDao;
+        this.online = online;
+        this.maxBytes = maxBytes;
+    }
+
+    // Ready-to-paint photo for the student at the given size, or null if there is none
+    public ImageIcon get(long studentNo, int width, int height) {
+        Key key = new Key(studentNo, width, height);
+        synchronized (this) {
+            ImageIcon cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        if (!online.getAsBoolean()) {
+            skipped.increment();
+            return null; // Not cached, so a later scan tries again once the database is back
+        }
+
+        // Load outside the lock so a slow BLOB fetch doesn't block other lookups.
+        // The smallest stored copy that covers the requested size, so only a resize-free decode is left.
+        byte[] studentImg;
+        try {
+            studentImg = width <= StudentPhotos.THUMB_SIZE && height <= StudentPhotos.THUMB_SIZE
+                    ? studentDao.findThumbPicture(Long.toString(studentNo))
+                    : studentDao.findDisplayPicture(Long.toString(studentNo));
+        } catch (RuntimeException e) {
+            System.out.println("Could not load photo for " + studentNo + ": " + e.getMessage());
+            return null; // Database unreachable; show the scan without a photo
+        }
+        BufferedImage scaled = decodeScaled(studentImg, width, height);
+        if (scaled == null) {
+            return null;
+        }
+        ImageIcon icon = new ImageIcon(scaled);
+        put(key, icon);
+        return icon;
+    }
+
+    public ImageIcon get(String studentNo, int width, int height) {
+        return get(StudentRoster.parseStudentNo(studentNo), width, height);
+    }
+
+    // Drop every size cached for a student, e.g. after their picture changes
+    public synchronized void invalidate(long studentNo) {
+        Iterator<Map.Entry<Key, ImageIcon>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, ImageIcon> entry = it.next();
+            if (entry.getKey().studentNo() == studentNo) {
+                usedBytes -= sizeOf(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public String stats() {
+        synchronized (this) {
+            return String.format("photo cache entries=%d bytes=%d/%d hits=%d misses=%d evictions=%d skippedOffline=%d",
+                    entries.size(), usedBytes, maxBytes, hits.sum(), misses.sum(), evictions.sum(), skipped.sum());
+        }
+    }
+
+    private synchronized void put(Key key, ImageIcon icon) {
+        long size = sizeOf(icon);
+        if (size > maxBytes) {
+            return; // Would evict everything else and still not fit
+        }
+        ImageIcon previous = entries.put(key, icon);
+        if (previous != null) {
+            usedBytes -= sizeOf(previous);
+        }
+        usedBytes += size;
+
+        Iterator<ImageIcon> it = entries.values().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            usedBytes -= sizeOf(it.next());
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long sizeOf(ImageIcon icon) {
+        return (long) icon.getIconWidth() * icon.getIconHeight() * 4;
+    }
+
+    // Decode a picture BLOB and render it at the target size; pre-sized copies are used as decoded
+    static BufferedImage decodeScaled(byte[] studentImg, int width, int height) {
+        if (studentImg == null || studentImg.length == 0) {
+            return null;
+        }
+        try {
+            BufferedImage img = StudentPhotos.decode(studentImg);
+            if (img == null) {
+                System.out.println("ImageIO.read returned null – image data may be corrupted or invalid format.");
+                return null;
+            }
+            if (img.getWidth() == width && img.getHeight() == height) {
+                return img;
+            }
+            return StudentPhotos.scale(img, width, height);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Camera preview that reuses two image buffers instead of allocating per frame.
+// The camera thread fills the back buffer; the EDT swaps it in and repaints.
+// While a swap is pending, new frames are dropped so the EDT only ever paints the latest one.
+public class PreviewPanel extends JComponent {
+    private final long minFrameNanos;
+    private long lastFrameAt;
+
+    private BufferedImage front; // Painted on the EDT
+    private BufferedImage back;  // Filled on the camera thread
+    private final AtomicBoolean swapPending = new AtomicBoolean();
+
+    // Still image (a scanned student's photo) shown instead of the feed until holdUntil
+    private Image still;
+    private volatile long holdUntil;
+
+    public PreviewPanel(int maxFps) {
+        this.minFrameNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxFps);
+        setOpaque(true);
+        setBackground(Color.BLACK);
+    }
+
+    // Called from the camera thread for every captured frame
+    public void publish(Mat frame) {
+        long now = System.nanoTime();
+        if (now - lastFrameAt < minFrameNanos || System.currentTimeMillis() < holdUntil) {
+            return;
+        }
+        if (swapPending.get()) {
+            return; // Previous frame not painted yet, drop this one
+        }
+        lastFrameAt = now;
+        back = SystemUI.matToBufferedImage(frame, back);
+        swapPending.set(true);
+        SwingUtilities.invokeLater(() -> {
+            BufferedImage painted = front;
+            front = back;
+            back = painted;
+            swapPending.set(false);
+            repaint();
+        });
+    }
+
+    // Show a still image in place of the feed for the given time; call on the EDT
+    public void showStill(Image image, long holdMillis) {
+        still = image;
+        holdUntil = System.currentTimeMillis() + holdMillis;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        Image image = System.currentTimeMillis() < holdUntil ? still : front;
+        if (image == null) {
+            return;
+        }
+        // Centered at natural size, like the JLabel this replaces
+        int x = (getWidth() - image.getWidth(null)) / 2;
+        int y = (getHeight() - image.getHeight(null)) / 2;
+        g.drawImage(image, x, y, null);
+    }
+}
@@ -12,214 +12,479 @@ import io.github.cdimascio.dotenv.Dotenv;
 import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.core.mapper.reflect.BeanMapper;
 import org.jdbi.v3.sqlobject.*;
-import org.jdbi.v3.core.Handle;
 
 // OpenCV libraries
 import org.opencv.core.*;
-import org.opencv.videoio.Videoio;
-import org.opencv.videoio.VideoCapture;
-import org.opencv.objdetect.QRCodeDetector;
 
 // Java Swing libraries
-import javax.imageio.ImageIO;
 import javax.swing.*;
 
 // Misc
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class QRAttendance {
+    // Missing .env falls back to plain environment variables (benchmarks, headless hosts)
     static Dotenv dotenv = Dotenv.configure()
             .directory("src/main/resources/.env")
+            .ignoreIfMissing()
             .load();
 
-    // Set up JDBI connection
-    static String dbUrl = dotenv.get("DB_URL");
-    static String dbUser = dotenv.get("DB_USERNAME");
-    static String dbPass = dotenv.get("DB_PASSWORD");
+    // Set up JDBI connection through a pool configured by DB_URL, DB_USERNAME, DB_PASSWORD and DB_POOL_*
+    static ConnectionPool connectionPool;
     static Jdbi jdbi;
 
+    // Bring the MySQL schema up to date on startup; partitioning attendance by year is opt-in
+    static boolean migrateSchema = Boolean.parseBoolean(dotenv.get("DB_MIGRATE", "true"));
+    static boolean partitionAttendance = Boolean.parseBoolean(dotenv.get("DB_PARTITION_ATTENDANCE", "false"));
+
+    // Attendance report (--report): rows per cursor round trip, and connections used for separate student-number
+    // ranges
+    static int reportFetchSize = Integer.parseInt(dotenv.get("REPORT_FETCH_SIZE", "1000"));
+    static int reportThreads = Integer.parseInt(dotenv.get("REPORT_THREADS",
+            String.valueOf(Math.min(4, Runtime.getRuntime().availableProcessors()))));
+
+    // Roster import (--import-roster): photo workers, students per committed batch, and the longest side photos
+    // are stored at (the largest size the UI shows them)
+    static int importThreads = Integer.parseInt(dotenv.get("IMPORT_THREADS",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+    static int importBatchSize = Integer.parseInt(dotenv.get("IMPORT_BATCH_SIZE", "200"));
+    static int importPhotoMaxSide = Integer.parseInt(dotenv.get("IMPORT_PHOTO_MAX_SIDE", "1000"));
+
+    // Pictures per committed page when --backfill-photos fills in the pre-sized copies, on IMPORT_THREADS workers
+    static int photoBackfillPageSize = Integer.parseInt(dotenv.get("PHOTO_BACKFILL_PAGE_SIZE", "100"));
+
+    // Embedded store the scan path works against, and how often it syncs with MySQL
+    static String localStorePath = dotenv.get("LOCAL_STORE_PATH", "./data/qrattendance");
+    static int syncBatchSize = Integer.parseInt(dotenv.get("SYNC_BATCH_SIZE", "500"));
+    static long syncPushMillis = Long.parseLong(dotenv.get("SYNC_PUSH_MS", "2000"));
+    static long syncPullMillis = Long.parseLong(dotenv.get("SYNC_PULL_MS", "300000"));
+    // Days synced rows are kept in the local store; 0 keeps them forever
+    static int localRetentionDays = Integer.parseInt(dotenv.get("LOCAL_RETENTION_DAYS", "30"));
+
+    // Write-behind settings for attendance inserts
+    static int writeBatchSize = Integer.parseInt(dotenv.get("WRITE_BATCH_SIZE", "50"));
+    static long writeFlushMillis = Long.parseLong(dotenv.get("WRITE_FLUSH_MS", "500"));
+    static int writeQueueCapacity = Integer.parseInt(dotenv.get("WRITE_QUEUE_CAPACITY", "1000"));
+    // Rows the writer gave up on after its retries, kept for re-entry by hand
+    static String writeDeadLetterFile = dotenv.get("WRITE_DEAD_LETTER_FILE", "./data/attendance-dead-letter.csv");
+
+    // Comma-separated frame sources (camera:<index>, video:<file>, images:<folder>), one gate each.
+    // Falls back to CAMERA_IDS, then to the platform's camera.
+    static List<String> frameSources;
+
+    // Downscale factor for locating QR codes before decoding at full resolution
+    static double qrDetectScale = Double.parseDouble(dotenv.get("QR_DETECT_SCALE", "0.5"));
+
+    // How long a scanned payload is ignored after it was accepted
+    static long scanCooldownMillis = Long.parseLong(dotenv.get("SCAN_COOLDOWN_MS", "5000"));
+
+    // Camera preview repaint cap, independent of the capture rate
+    static int previewFps = Integer.parseInt(dotenv.get("PREVIEW_FPS", "30"));
+
+    // How often the scan loop metrics are printed; 0 only publishes them over JMX
+    static long metricsLogMillis = Long.parseLong(dotenv.get("METRICS_LOG_MS", "60000"));
+
+    // Local HTTP endpoint for attendance events (0 turns it off) and how many events it can replay
+    static String eventHttpHost = dotenv.get("EVENT_HTTP_HOST", "127.0.0.1");
+    static int eventHttpPort = Integer.parseInt(dotenv.get("EVENT_HTTP_PORT", "8787"));
+    static int eventBufferSize = Integer.parseInt(dotenv.get("EVENT_BUFFER_SIZE", "1000"));
+    // Browser origin (e.g. http://dashboard.local:3000) allowed to read events cross-origin; none by default
+    static String eventHttpAllowedOrigin = dotenv.get("EVENT_HTTP_ALLOWED_ORIGIN", "");
+
+    // Students the roster's Bloom filter is sized for (it grows past this with the roster) and its target
+    // false positive rate; unknown payloads it lets through cost one local query each
+    static int rosterFilterExpected = Integer.parseInt(dotenv.get("ROSTER_FILTER_EXPECTED", "10000"));
+    static double rosterFilterFpp = Double.parseDouble(dotenv.get("ROSTER_FILTER_FPP", "0.001"));
+
+    // Byte budget for decoded student photos, 64 MB unless configured
+    static long photoCacheBytes = Long.parseLong(dotenv.get("PHOTO_CACHE_BYTES", "67108864"));
+
     // DAOs for better table CRUD
     static StudentDao studentDao;
     static AttendanceDao attendanceDao;
-    AttendanceTableModel attendanceTableModel;
+    static StudentRoster roster;
+    static PhotoCache photoCache;
+    static AttendanceWriter attendanceWriter;
+    static AttendanceState attendanceState;
+    static LocalStore localStore;
+    static RemoteSync remoteSync;
+    static ScanCooldown scanCooldown = new ScanCooldown(scanCooldownMillis);
+    static ScanMetrics scanMetrics = new ScanMetrics();
+    static AttendanceEventBus attendanceEvents = new AttendanceEventBus(eventBufferSize);
+    static AttendanceEventServer eventServer;
+
+    // Log polling interval, doubled up to the maximum while no new rows arrive
+    private static final int POLL_INTERVAL_MS = 2000;
+    private static final int MAX_POLL_INTERVAL_MS = 16000;
 
-    private VideoCapture camera;
     private static int cameraID;
-
-    private boolean running;
-    private boolean paused;
-
-    private String studentNo;
+    private ScanEngine scanEngine;
 
     private SystemUI ui;
 
     // Load appropriate library based on OS
     static {
         String os = System.getProperty("os.name").toLowerCase();
-        if (os.contains("win")) {
-            System.load("C:\\opencv\\build\\java\\x64\\opencv_java4100.dll");
-            cameraID = 0;
-        } else {
-            System.load("/usr/lib/java/libopencv_java4100.so");
-            cameraID = 1;
+        try {
+            if (os.contains("win")) {
+                System.load("C:\\opencv\\build\\java\\x64\\opencv_java4100.dll");
+            } else {
+                System.load("/usr/lib/java/libopencv_java4100.so");
+            }
+        } catch (UnsatisfiedLinkError e) {
+            // No system-wide install, use the natives bundled with the openpnp OpenCV jar
+            nu.pattern.OpenCV.loadLocally();
         }
-    }
-
-    public QRAttendance() {
-        this.attendanceTableModel = new AttendanceTableModel();
+        cameraID = os.contains("win") ? 0 : 1;
+        frameSources = Arrays.stream(dotenv.get("FRAME_SOURCES", dotenv.get("CAMERA_IDS", String.valueOf(cameraID))).split(","))
+                .map(String::trim)
+                .filter(spec -> !spec.isEmpty())
+                .toList();
     }
 
     public static void main(String[] args) {
         QRAttendance system = new QRAttendance();
-        jdbi = Jdbi.create(dbUrl, dbUser, dbPass);
+        boolean report = args.length > 0 && "--report".equals(args[0]);
+        connectionPool = new ConnectionPool(dotenv, report); // Only the report streams through cursors
+        jdbi = Jdbi.create(connectionPool.getDataSource());
         jdbi.installPlugin(new SqlObjectPlugin());
         jdbi.registerRowMapper(BeanMapper.factory(Students.class));
         jdbi.registerRowMapper(BeanMapper.factory(Attendance.class));
+        if (migrateSchema) {
+            try {
+                new SchemaMigrator(jdbi, partitionAttendance).migrate();
+            } catch (RuntimeException e) {
+                // MySQL unreachable; retried on the next start, scanning works off the local store meanwhile
+                System.out.println("Schema migration skipped: " + e.getMessage());
+            }
+        }
+
+        // Report: QRAttendance --report <from> <to> [outDir] writes CSV totals for the days from..to (yyyy-MM-dd)
+        if (report) {
+            System.exit(runReport(args));
+        }
+
+        // Enrollment: QRAttendance --import-roster <roster.csv> [photoDir] upserts students and their photos
+        if (args.length > 0 && "--import-roster".equals(args[0])) {
+            System.exit(runImport(args));
+        }
+
+        // Pre-sized pictures: QRAttendance --backfill-photos [all] fills them in for students stored before them
+        if (args.length > 0 && "--backfill-photos".equals(args[0])) {
+            System.exit(runBackfill(args));
+        }
+
+        // Headless replay: QRAttendance --headless <source>... pushes footage through the scan path without a UI
+        boolean headless = args.length > 0 && "--headless".equals(args[0]);
+        List<FrameSource> sources;
+        try {
+            sources = openFrameSources(headless && args.length > 1 ? Arrays.asList(args).subList(1, args.length) : frameSources);
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            System.out.println(e.getMessage());
+            System.out.println(headless ? "Usage: --headless <camera:<index>|video:<file>|images:<folder>>..."
+                    : "Check FRAME_SOURCES: camera:<index>, video:<file> or images:<folder>, comma-separated");
+            connectionPool.close();
+            System.exit(2);
+            return;
+        }
+
         studentDao = jdbi.onDemand(StudentDao.class);
         attendanceDao = jdbi.onDemand(AttendanceDao.class);
+
+        // The scan path only touches the local store; MySQL is reached through the background sync.
+        // A replay records into a scratch store that is never pushed, so footage can't log real students in or out.
+        localStore = headless ? LocalStore.scratch("replay") : new LocalStore(localStorePath);
+        AttendanceDao localAttendanceDao = localStore.getAttendanceDao();
+        roster = new StudentRoster(localStore.getStudentDao(), rosterFilterExpected, rosterFilterFpp);
+        // Each roster pull clears the cache; nothing is looked up before remoteSync is assigned below
+        photoCache = new PhotoCache(studentDao, photoCacheBytes, () -> remoteSync.isOnline());
+        remoteSync = new RemoteSync(localStore, studentDao, attendanceDao, roster, photoCache,
+                syncBatchSize, syncPushMillis, syncPullMillis, localRetentionDays);
+        remoteSync.pullRoster();
+        if (headless && !remoteSync.isOnline()) {
+            copyGateRoster(localStore);
+        }
+        if (!headless) {
+            remoteSync.pushAttendance();
+        }
+        roster.refresh();
+        System.out.println("Loaded " + roster.size() + " students into the roster cache (" + roster.filterStats() + ")");
+
+        // MySQL knows about scans at other gates; the local copy is the fallback when it's unreachable
+        attendanceState = new AttendanceState();
+        if (remoteSync.isOnline()) {
+            attendanceState.load(attendanceDao);
+        } else {
+            attendanceState.load(localAttendanceDao);
+        }
+        attendanceWriter = new AttendanceWriter(localAttendanceDao, writeBatchSize, writeFlushMillis, writeQueueCapacity,
+                Path.of(writeDeadLetterFile), scanMetrics, attendanceEvents);
+        attendanceWriter.start();
+        if (!headless) {
+            remoteSync.start();
+        }
+        scanMetrics.register();
+        if (eventHttpPort > 0 && !headless) { // Dashboards would take replayed scans for live ones
+            try {
+                eventServer = new AttendanceEventServer(attendanceEvents, eventHttpHost, eventHttpPort,
+                        eventHttpAllowedOrigin);
+                eventServer.start();
+            } catch (IOException e) {
+                System.out.println("Attendance event endpoint not started: " + e.getMessage());
+            }
+        }
+        if (metricsLogMillis > 0) {
+            scanMetrics.startLogging(metricsLogMillis);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            attendanceWriter.shutdown();
+            System.out.println(attendanceWriter.stats());
+            System.out.println(attendanceEvents.stats());
+            if (eventServer != null) {
+                System.out.println(eventServer.stats());
+                eventServer.stop();
+            }
+            if (!headless) {
+                remoteSync.shutdown();
+            }
+            System.out.println(remoteSync.stats());
+            localStore.close();
+            System.out.println(connectionPool.stats());
+            connectionPool.close();
+            System.out.println(scanCooldown.stats());
+            System.out.println(roster.stats());
+            System.out.println(photoCache.stats());
+            System.out.println(scanMetrics.getSummary());
+        }));
+
+        if (headless) {
+            system.runHeadless(sources);
+            System.exit(0);
+        }
+
         SwingUtilities.invokeLater(() -> {
-            SystemUI ui = new SystemUI(system, system.attendanceTableModel);
-            system.setUI(ui);
+            List<String> sourceNames = sources.stream().map(FrameSource::getName).toList();
+            SystemUI ui = new SystemUI(system, sourceNames);
+            system.setUI(ui, sources);
             ui.setVisible(true);
         });
-        system.startPolling();
     }
 
-    public void setUI(SystemUI ui) {
-        this.ui = ui;
-        startCamera();
+    private static int runReport(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: --report <from> <to> [outDir]");
+            return 2;
+        }
+        try {
+            LocalDate from = LocalDate.parse(args[1]);
+            LocalDate to = LocalDate.parse(args[2]);
+            Path outDir = Path.of(args.length > 3 ? args[3] : "report");
+            long start = System.nanoTime();
+            AttendanceReport.Summary summary = new AttendanceReport(jdbi, reportFetchSize).run(from, to, reportThreads);
+            summary.writeCsv(outDir);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Report for %s..%s: %d rows, %d days in %.1fs (%.0f rows/s), written to %s%n",
+                    from, to, summary.getRows(), summary.getDays(), seconds, summary.getRows() / seconds,
+                    outDir.toAbsolutePath());
+            return 0;
+        } catch (DateTimeParseException e) {
+            System.out.println("Dates must be yyyy-MM-dd: " + e.getParsedString());
+            return 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (RuntimeException e) {
+            System.out.println("Report failed: " + e.getMessage());
+            return 1;
+        } finally {
+            connectionPool.close();
+        }
     }
 
-    private void startCamera() {
-        camera = new VideoCapture(cameraID);
-        if (!camera.isOpened()) {
-            System.out.println("Error: Camera not found!");
-            return;
+    private static int runImport(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: --import-roster <roster.csv> [photoDir]");
+            return 2;
+        }
+        try {
+            new RosterImporter(jdbi, importThreads, importBatchSize, importPhotoMaxSide)
+                    .run(Path.of(args[1]), args.length > 2 ? Path.of(args[2]) : null);
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (IOException | RuntimeException e) {
+            // Committed batches stay; rerunning the same command resumes after them
+            System.out.println("Import stopped: " + e.getMessage());
+            return 1;
+        } finally {
+            connectionPool.close();
         }
+    }
+
+    private static int runBackfill(String[] args) {
+        try {
+            new PhotoBackfill(jdbi, importThreads, photoBackfillPageSize)
+                    .run(args.length > 1 && "all".equals(args[1]));
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (RuntimeException e) {
+            // Committed pages stay; rerunning picks up the students still missing their copies
+            System.out.println("Backfill stopped: " + e.getMessage());
+            return 1;
+        } finally {
+            connectionPool.close();
+        }
+    }
 
-        camera.set(Videoio.CAP_PROP_FRAME_WIDTH, 1280);
-        camera.set(Videoio.CAP_PROP_FRAME_HEIGHT, 720);
-
-        running = true;
-        paused = false;
-        QRCodeDetector qrDetector = new QRCodeDetector();
-
-        new Thread(() -> {
-            Mat frame = new Mat();
-            while (running) {
-                if (!paused && camera.read(frame)) {
-                    studentNo = detectQRCode(frame, qrDetector);
-                    if (!studentNo.isEmpty()) {
-                        if (checkStudent(studentDao, studentNo).isEmpty()) {
-                            ui.invalidStudentDialog();
-                            paused = true;
-                            continue;
-                        }
-                        createEntry(attendanceDao, studentNo);
-                        paused = true;
-                    }
-                    ui.updateLabel(frame);
-                } else {
-                    try {
-                        ArrayList<String> studentInfo = getStudentInfo(studentDao, attendanceDao, studentNo);
-                        ui.displayStudentInfo(studentInfo);
-                        ui.displayImage(getStudentImage(studentDao, studentInfo));
-                        Thread.sleep(3000);
-                        paused = false;
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
+    // Replay roster when MySQL is unreachable: the gate's own local copy, if no running kiosk holds it open
+    private static void copyGateRoster(LocalStore replayStore) {
+        try {
+            LocalStore gateStore = new LocalStore(localStorePath);
+            try {
+                replayStore.getLocalStoreDao().replaceStudents(gateStore.getStudentDao().findAllStudents());
+            } finally {
+                gateStore.close();
             }
-            camera.release();
-        }).start();
+        } catch (RuntimeException e) {
+            System.out.println("No roster for the replay, every scan will be rejected: " + e.getMessage());
+        }
     }
 
-    private String detectQRCode(Mat frame, QRCodeDetector qrDetector) {
-        Mat points = new Mat();
-		return qrDetector.detectAndDecode(frame, points);
+    // Fails on the first spec that isn't a frame source, rather than replaying only some of them
+    private static List<FrameSource> openFrameSources(List<String> specs) {
+        List<FrameSource> sources = new ArrayList<>();
+        for (String spec : specs) {
+            FrameSource source;
+            try {
+                source = FrameSource.parse(spec, 1280, 720);
+            } catch (IllegalArgumentException e) { // Also a camera index that isn't a number
+                throw new IllegalArgumentException("Invalid frame source \"" + spec + "\": " + e.getMessage(), e);
+            }
+            if (source instanceof CameraFrameSource camera && !camera.isOpened()) {
+                System.out.println("Error: " + camera.getName() + " not found!");
+                continue;
+            }
+            sources.add(source);
+        }
+        return sources;
     }
 
-    private Optional<Students> checkStudent(StudentDao dao, String studentNo) {
-		return dao.findStudent(studentNo);
+    public void setUI(SystemUI ui, List<FrameSource> sources) {
+        this.ui = ui;
+        startScanning(sources);
     }
 
-    private ArrayList<String> getStudentInfo(StudentDao studentDao, AttendanceDao attendanceDao, String studentNo) {
-        ArrayList<String> studentInfo = new ArrayList<>();
-        Optional<Students> getStudent = studentDao.findStudent(studentNo);
-        Optional<Attendance> attendanceRecord = checkAttendanceRecord(attendanceDao, studentNo);
+    private void startScanning(List<FrameSource> sources) {
+        scanEngine = new ScanEngine(this, ui);
+        for (int i = 0; i < sources.size(); i++) {
+            scanEngine.addSource(sources.get(i), ui.getPreview(i), false);
+        }
+        scanEngine.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(scanEngine.stats())));
+    }
 
-        Attendance attendance = attendanceRecord.get();
-        populateInfo(studentInfo, attendance, getStudent);
-        return studentInfo;
+    // Run recorded footage through decoding and the attendance path at full speed and report throughput
+    void runHeadless(List<FrameSource> sources) {
+        scanEngine = new ScanEngine(this, null);
+        for (FrameSource source : sources) {
+            scanEngine.addSource(source, null, true);
+        }
+        long start = System.nanoTime();
+        scanEngine.start();
+        try {
+            scanEngine.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        scanEngine.stop();
+
+        System.out.println(scanEngine.stats());
+        System.out.println(scanMetrics.getSummary());
+        System.out.printf("Headless replay: %d frames, %d scans in %.2fs (%.1f frames/sec, %.2f scans/sec)%n",
+                scanEngine.getFramesDecoded(), scanEngine.getRecorded(), seconds,
+                scanEngine.getFramesDecoded() / seconds, scanEngine.getRecorded() / seconds);
     }
 
-    private Optional<Attendance> checkAttendanceRecord(AttendanceDao dao, String studentNo) {
-        return dao.findLatestRecord(studentNo);
+    String detectQRCode(Mat frame, QRDecoder qrDecoder) {
+		return qrDecoder.decode(frame);
     }
 
-    private void createEntry(AttendanceDao dao, String studentNo) {
-        Optional<Attendance> attendanceRecord = checkAttendanceRecord(dao, studentNo);
-        if (attendanceRecord.isEmpty()) {
-            dao.insert(studentNo, LocalDateTime.now(), "LOGGED IN");
-            return;
-        }
+    boolean checkStudent(StudentRoster roster, String studentNo) {
+		return roster.contains(studentNo);
+    }
 
-        Attendance attendance = attendanceRecord.get();
+    ArrayList<String> getStudentInfo(StudentRoster roster, Attendance attendance) {
+        ArrayList<String> studentInfo = new ArrayList<>();
+        Optional<Students> getStudent = roster.find(attendance.getStudentNo());
+        populateInfo(studentInfo, attendance, getStudent);
+        return studentInfo;
+    }
 
-        if ("LOGGED IN".equals(attendance.getStatus())) {
-            dao.insert(studentNo, LocalDateTime.now(), "LOGGED OUT");
-            return;
-        }
+    // Queue the next login/logout for the student and return it; the insert happens in the background
+    Attendance createEntry(AttendanceState state, AttendanceWriter writer, String studentNo) throws InterruptedException {
+        long studentNumber = StudentRoster.parseStudentNo(studentNo);
 
-        dao.insert(studentNo, LocalDateTime.now(), "LOGGED IN");
+        Attendance attendance = new Attendance();
+        attendance.setStudentNo(studentNumber);
+        attendance.setTimestamp(Timestamp.valueOf(LocalDateTime.now()));
+        attendance.setStatus(state.toggle(studentNumber));
+        writer.submit(attendance);
+        return attendance;
     }
 
-    public void startPolling() {
-        Timer timer = new Timer(2000, e -> {
-            try (Handle handle = jdbi.open()) {
-                List<Attendance> records = fetchAttendanceRecords(handle);
-                attendanceTableModel.setData(records); // UI update
-            } catch (Exception ex) {
-                ex.printStackTrace(); // Log appropriately
+    // Keeps a log window's model up to date until the returned action is run
+    public Runnable startPolling(AttendanceTableModel attendanceTableModel) {
+        Timer timer = new Timer(POLL_INTERVAL_MS, null);
+        timer.addActionListener(e -> attendanceTableModel.poll(added -> {
+            if (added == 0) {
+                // Back off while the log is idle
+                timer.setDelay(Math.min(timer.getDelay() * 2, MAX_POLL_INTERVAL_MS));
+            } else {
+                timer.setDelay(POLL_INTERVAL_MS);
+            }
+        }));
+        // A scan at this gate means a new row shortly; stop backing off so it shows up on the next poll
+        Consumer<AttendanceEvent> wake = event -> SwingUtilities.invokeLater(() -> {
+            if (timer.isRunning() && timer.getDelay() > POLL_INTERVAL_MS) {
+                timer.setDelay(POLL_INTERVAL_MS);
+                timer.setInitialDelay(POLL_INTERVAL_MS);
+                timer.restart();
             }
         });
+        attendanceEvents.subscribe(wake);
+        timer.setInitialDelay(0);
         timer.start();
+        return () -> {
+            attendanceEvents.unsubscribe(wake);
+            timer.stop();
+        };
     }
 
-    public List<Attendance> fetchAttendanceRecords(Handle handle) {
-        return handle.createQuery("SELECT * FROM attendance ORDER BY Timestamp DESC")
-                .map((rs, ctx) -> {
-                    Attendance record = new Attendance();
-                    record.setAttendanceId(rs.getLong("AttendanceID"));
-                    record.setStudentNo(rs.getLong("StudentNo"));
-                    record.setTimestamp(rs.getTimestamp("Timestamp"));
-                    record.setStatus(rs.getString("Status"));
-                    return record;
-                })
-                .list();
-    }
-
-    ArrayList<String> getAttendanceInfo(AttendanceDao attendanceDao, StudentDao studentDao, String idValue) {
+    // Details for a log row; the row itself comes from the table model, only the student may need a lookup
+    ArrayList<String> getAttendanceInfo(StudentRoster roster, Attendance attendance) {
         ArrayList<String> attendanceInfo = new ArrayList<>();
-        Optional<Attendance> attendanceRecord = attendanceDao.findSpecificRecord(idValue);
-        Attendance attendance = attendanceRecord.get();
-
-        Optional<Students> getStudent = studentDao.findStudent(String.valueOf(attendance.getStudentNo()));
+        Optional<Students> getStudent = roster.find(attendance.getStudentNo());
         populateInfo(attendanceInfo, attendance, getStudent);
         attendanceInfo.add(attendance.getTimestamp().toString());
         return attendanceInfo;
     }
 
-    private void populateInfo(ArrayList<String> attendanceInfo, Attendance attendance, Optional<Students> getStudent) {
+    void populateInfo(ArrayList<String> attendanceInfo, Attendance attendance, Optional<Students> getStudent) {
         Students student = getStudent.get();
 
         attendanceInfo.add(Long.toString(student.getStudentNo()));
@@ -229,32 +494,11 @@ public class QRAttendance {
         attendanceInfo.add(attendance.getStatus());
     }
 
-    public ImageIcon getStudentImage(StudentDao studentDao, ArrayList<String> studentInfo) {
-        try {
-            if (studentInfo == null || studentInfo.isEmpty()) {
-                return null;
-            }
-
-            byte[] studentImg = studentDao.findPicture(studentInfo.getFirst());
-
-            if (studentImg == null || studentImg.length == 0) {
-                return null;
-            }
-
-            InputStream is = new ByteArrayInputStream(studentImg);
-            BufferedImage img = ImageIO.read(is);
-            Image scaledImg = img.getScaledInstance(1000, 1000, Image.SCALE_SMOOTH);
-            if (scaledImg == null) {
-                System.out.println("ImageIO.read returned null – image data may be corrupted or invalid format.");
-                return null;
-            }
-
-            return new ImageIcon(scaledImg);
-
-        } catch (IOException e) {
-            e.printStackTrace();
+    ImageIcon getStudentImage(PhotoCache photoCache, ArrayList<String> studentInfo) {
+        if (studentInfo == null || studentInfo.isEmpty()) {
             return null;
         }
+        return photoCache.get(studentInfo.getFirst(), StudentPhotos.DISPLAY_SIZE, StudentPhotos.DISPLAY_SIZE);
     }
 
 }
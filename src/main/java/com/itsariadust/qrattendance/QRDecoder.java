@@ -0,0 +1,79 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.objdetect.QRCodeDetector;
+
+// Two-phase QR reader: locate the code on a downscaled grayscale copy, then decode
+// only the located region at full resolution. Working Mats are reused between frames,
+// so an instance must stay on one thread.
+public class QRDecoder {
+    // Extra border around the located code so the decoder still sees its quiet zone
+    private static final double ROI_MARGIN = 0.15;
+
+    private final QRCodeDetector detector = new QRCodeDetector();
+    private final double scale;
+
+    private final Mat gray = new Mat();
+    private final Mat small = new Mat();
+    private final Mat points = new Mat();
+    private final Size noSize = new Size();
+    private final float[] corners = new float[8];
+
+    public QRDecoder(double scale) {
+        this.scale = Math.min(1.0, scale);
+    }
+
+    // Decoded payload, or an empty string when the frame holds no readable code
+    public String decode(Mat frame) {
+        Mat source = frame;
+        if (frame.channels() > 1) {
+            Imgproc.cvtColor(frame, gray, Imgproc.COLOR_BGR2GRAY);
+            source = gray;
+        }
+
+        Mat located = source;
+        if (scale < 1.0) {
+            Imgproc.resize(source, small, noSize, scale, scale, Imgproc.INTER_AREA);
+            located = small;
+        }
+        if (!detector.detect(located, points) || points.total() < 4) {
+            return ""; // Nothing that looks like a code, skip the expensive decode
+        }
+
+        points.get(0, 0, corners);
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < corners.length; i += 2) {
+            minX = Math.min(minX, corners[i]);
+            maxX = Math.max(maxX, corners[i]);
+            minY = Math.min(minY, corners[i + 1]);
+            maxY = Math.max(maxY, corners[i + 1]);
+        }
+
+        // Back to full-resolution coordinates, padded and clamped to the frame
+        double marginX = (maxX - minX) / scale * ROI_MARGIN;
+        double marginY = (maxY - minY) / scale * ROI_MARGIN;
+        int x0 = (int) Math.max(0, minX / scale - marginX);
+        int y0 = (int) Math.max(0, minY / scale - marginY);
+        int x1 = (int) Math.min(source.cols(), Math.ceil(maxX / scale + marginX));
+        int y1 = (int) Math.min(source.rows(), Math.ceil(maxY / scale + marginY));
+        if (x1 <= x0 || y1 <= y0) {
+            return "";
+        }
+
+        Mat region = source.submat(new Rect(x0, y0, x1 - x0, y1 - y0));
+        try {
+            return detector.detectAndDecode(region);
+        } finally {
+            region.release();
+        }
+    }
+
+    public void release() {
+        gray.release();
+        small.release();
+        points.release();
+    }
+}
@@ -0,0 +1,44 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.StatementCustomizer;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Tracks the statement a worker is currently running so another thread can abort it,
+// and puts a server-side timeout on every statement it is attached to.
+public class QueryCanceller implements StatementCustomizer {
+    private final int timeoutSeconds;
+    private final AtomicReference<Statement> running = new AtomicReference<>();
+
+    public QueryCanceller(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    @Override
+    public void beforeExecution(PreparedStatement stmt, StatementContext ctx) throws SQLException {
+        stmt.setQueryTimeout(timeoutSeconds);
+        running.set(stmt);
+    }
+
+    @Override
+    public void afterExecution(PreparedStatement stmt, StatementContext ctx) {
+        running.compareAndSet(stmt, null);
+    }
+
+    // Abort whatever is executing right now; the worker sees an exception from its query
+    public void cancel() {
+        Statement stmt = running.getAndSet(null);
+        if (stmt == null) {
+            return;
+        }
+        try {
+            stmt.cancel();
+        } catch (SQLException e) {
+            // Already finished or the driver can't cancel; the caller discards the result either way
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.itsariadust.qrattendance;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Background synchronizer between the local store and MySQL.
+// Pushes unsynced attendance rows in batches and periodically pulls the roster.
+// Rows are marked synced only after MySQL accepted them, so an outage just grows the local backlog.
+// A crash between the remote commit and marking the rows re-sends that one batch; MySQL skips the rows it
+// already has by their gate id and local AttendanceID.
+// Synced rows are deleted locally once they are older than the retention period.
+public class RemoteSync {
+    private static final long PRUNE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final LocalStoreDao localStoreDao;
+    private final String gateId;
+    private final StudentDao remoteStudentDao;
+    private final AttendanceDao remoteAttendanceDao;
+    private final StudentRoster roster;
+    private final PhotoCache photoCache;
+    private final int batchSize;
+    private final long pushMillis;
+    private final long pullMillis;
+    private final int retentionDays;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "remote-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean online = true;
+    private volatile long lastPushAt;
+    private volatile long lastPullAt;
+    private final LongAdder pushedRows = new LongAdder();
+    private final LongAdder pushedBatches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder prunedRows = new LongAdder();
+
+    public RemoteSync(LocalStore localStore, StudentDao remoteStudentDao, AttendanceDao remoteAttendanceDao,
+                      StudentRoster roster, PhotoCache photoCache, int batchSize, long pushMillis, long pullMillis,
+                      int retentionDays) {
+        this.localStoreDao = localStore.getLocalStoreDao();
+        this.gateId = localStore.getGateId();
+        this.remoteStudentDao = remoteStudentDao;
+        this.remoteAttendanceDao = remoteAttendanceDao;
+        this.roster = roster;
+        this.photoCache = photoCache;
+        this.batchSize = batchSize;
+        this.pushMillis = pushMillis;
+        this.pullMillis = pullMillis;
+        this.retentionDays = retentionDays;
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::pushAttendance, pushMillis, pushMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::pullRoster, pullMillis, pullMillis, TimeUnit.MILLISECONDS);
+        if (retentionDays > 0) {
+            scheduler.scheduleWithFixedDelay(this::pruneSynced, 0, PRUNE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Stop the schedule and make one last attempt to empty the backlog
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pushAttendance();
+    }
+
+    // Send every unsynced local row to MySQL, one batch insert per round trip
+    public synchronized void pushAttendance() {
+        try {
+            List<Attendance> batch;
+            do {
+                batch = localStoreDao.findUnsynced(batchSize);
+                if (batch.isEmpty()) {
+                    break; // Nothing sent, so this says nothing about whether MySQL is reachable
+                }
+                remoteAttendanceDao.insertFromGate(gateId, batch);
+                localStoreDao.markSynced(batch.stream().map(Attendance::getAttendanceId).toList());
+                pushedRows.add(batch.size());
+                pushedBatches.increment();
+                setOnline(true);
+            } while (batch.size() == batchSize);
+            lastPushAt = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    // Replace the local roster with MySQL's and reload the in-memory caches from it; photos are fetched again too,
+    // since a pull is how edits made on the server reach the gate
+    public synchronized void pullRoster() {
+        try {
+            List<Students> students = remoteStudentDao.findAllStudents();
+            localStoreDao.replaceStudents(students);
+            roster.refresh();
+            photoCache.invalidateAll();
+            lastPullAt = System.currentTimeMillis();
+            setOnline(true);
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    // Drop local rows MySQL has had for longer than the retention period; only touches the local store
+    public synchronized void pruneSynced() {
+        try {
+            Timestamp before = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+            prunedRows.add(localStoreDao.deleteSyncedBefore(before));
+        } catch (RuntimeException e) {
+            System.out.println("Could not prune synced attendance rows: " + e.getMessage());
+        }
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    private void setOnline(boolean nowOnline) {
+        if (nowOnline && !online) {
+            System.out.println("Remote database reachable again, resuming sync");
+        }
+        online = nowOnline;
+    }
+
+    private void failed(RuntimeException e) {
+        failures.increment();
+        if (online) {
+            System.out.println("Remote database unreachable, scans continue locally: " + e.getMessage());
+        }
+        online = false;
+    }
+
+    public String stats() {
+        long backlog;
+        try {
+            backlog = localStoreDao.countUnsynced();
+        } catch (RuntimeException e) {
+            backlog = -1;
+        }
+        return String.format("remote sync online=%b pushedRows=%d batches=%d failures=%d backlog=%d pruned=%d lastPush=%d lastPull=%d",
+                online, pushedRows.sum(), pushedBatches.sum(), failures.sum(), backlog, prunedRows.sum(), lastPushAt, lastPullAt);
+    }
+}
@@ -0,0 +1,40 @@
+package com.itsariadust.qrattendance;
+
+import java.util.Locale;
+
+// Running totals for one report row (a day, a program or a year level)
+public class ReportTotals {
+    long scans;
+    long students;
+    long sessions;
+    long sessionSeconds;
+    long unclosedSessions;
+    long orphanLogouts;
+
+    void add(ReportTotals other) {
+        scans += other.scans;
+        students += other.students;
+        sessions += other.sessions;
+        sessionSeconds += other.sessionSeconds;
+        unclosedSessions += other.unclosedSessions;
+        orphanLogouts += other.orphanLogouts;
+    }
+
+    static String csvHeader(String keyColumn) {
+        return keyColumn + ",students,scans,sessions,total_hours,avg_session_minutes,unclosed_sessions,orphan_logouts";
+    }
+
+    String toCsv(String key) {
+        // Locale.ROOT: a comma decimal separator would split the hours into an extra column
+        return String.format(Locale.ROOT, "%s,%d,%d,%d,%.2f,%.1f,%d,%d",
+                csvField(key), students, scans, sessions, sessionSeconds / 3600.0,
+                sessions == 0 ? 0 : sessionSeconds / 60.0 / sessions, unclosedSessions, orphanLogouts);
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,266 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.Jdbi;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bulk enrollment from a roster CSV (StudentNo, FirstName, MiddleName, LastName, ProgramID, YearLevel columns,
+// in any order) and a folder of photos named after the student number (2023001234.jpg, .jpeg or .png).
+// Photos are decoded, normalized and given their pre-sized copies in parallel while rows are upserted in batches,
+// one transaction each.
+// The line of the last committed batch is kept in <roster>.progress, so a rerun after a failure picks up
+// from there; the upsert makes replaying a batch harmless if the checkpoint is lost.
+public class RosterImporter {
+    private static final String[] COLUMNS = {"StudentNo", "FirstName", "MiddleName", "LastName", "ProgramID", "YearLevel"};
+    private static final String[] PHOTO_EXTENSIONS = {".jpg", ".jpeg", ".png", ".JPG", ".JPEG", ".PNG"};
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final long PROGRESS_MILLIS = 2000;
+
+    // One parsed roster line; picture and variants are null when the student has no usable photo
+    private record Row(long line, Students student, byte[] picture, StudentPhotos.Variants variants) {}
+    private record Photo(byte[] picture, StudentPhotos.Variants variants) {}
+
+    private final Jdbi jdbi;
+    private final int threads;
+    private final int batchSize;
+    private final int maxPhotoSide;
+
+    private long imported;
+    private final LongAdder photos = new LongAdder();
+    private final LongAdder missingPhotos = new LongAdder();
+    private final LongAdder badPhotos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RosterImporter(Jdbi jdbi, int threads, int batchSize, int maxPhotoSide) {
+        this.jdbi = jdbi;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.maxPhotoSide = maxPhotoSide;
+    }
+
+    public void run(Path roster, Path photoDir) throws IOException, InterruptedException {
+        Path checkpoint = roster.resolveSibling(roster.getFileName() + ".progress");
+        long resumeAfter = Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0;
+        if (resumeAfter > 0) {
+            System.out.println("Resuming " + roster + " after line " + resumeAfter);
+        }
+
+        long start = System.nanoTime();
+        long lastProgress = start;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BufferedReader reader = Files.newBufferedReader(roster, StandardCharsets.UTF_8)) {
+            int[] columns = columns(parseLine(reader.readLine()));
+
+            // Rows in file order; bounded so photos being prepared never get far ahead of the database
+            ArrayDeque<Future<Row>> pending = new ArrayDeque<>();
+            List<Row> batch = new ArrayList<>(batchSize);
+            long lineNo = 1;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNo++;
+                if (lineNo <= resumeAfter || line.isBlank()) {
+                    continue;
+                }
+                long rowLine = lineNo;
+                List<String> fields = parseLine(line);
+                pending.add(executor.submit(() -> prepare(rowLine, fields, columns, photoDir)));
+
+                while (pending.size() > threads * 4 || (pending.peek() != null && pending.peek().isDone())) {
+                    Row row = take(pending);
+                    if (row.student() != null) {
+                        batch.add(row);
+                    }
+                    if (batch.size() >= batchSize) {
+                        commit(batch, row.line(), checkpoint);
+                    }
+                }
+                if (System.nanoTime() - lastProgress > PROGRESS_MILLIS * 1_000_000) {
+                    lastProgress = System.nanoTime();
+                    progress(start, lineNo);
+                }
+            }
+            while (!pending.isEmpty()) {
+                Row row = take(pending);
+                if (row.student() != null) {
+                    batch.add(row);
+                }
+                if (batch.size() >= batchSize) {
+                    commit(batch, row.line(), checkpoint);
+                }
+            }
+            commit(batch, lineNo, checkpoint);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Files.deleteIfExists(checkpoint); // Finished; the next import of this file starts from the top
+        progress(start, -1);
+    }
+
+    private Row take(ArrayDeque<Future<Row>> pending) throws InterruptedException {
+        try {
+            return pending.poll().get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Upserts the batch in one transaction, then records how far the roster has been committed
+    private void commit(List<Row> batch, long throughLine, Path checkpoint) throws IOException {
+        if (!batch.isEmpty()) {
+            List<Students> students = batch.stream().map(Row::student).toList();
+            List<byte[]> pictures = batch.stream().map(Row::picture).toList();
+            List<byte[]> displays = batch.stream().map(row -> row.variants() == null ? null : row.variants().display()).toList();
+            List<byte[]> thumbs = batch.stream().map(row -> row.variants() == null ? null : row.variants().thumb()).toList();
+            jdbi.useTransaction(handle -> handle.attach(StudentDao.class)
+                    .upsertStudents(students, pictures, displays, thumbs));
+            imported += batch.size();
+            batch.clear();
+        }
+        Files.writeString(checkpoint, Long.toString(throughLine));
+    }
+
+    // Runs on the worker pool: field validation plus the photo, which is the expensive part
+    private Row prepare(long line, List<String> fields, int[] columns, Path photoDir) {
+        Students student;
+        try {
+            student = new Students();
+            student.setStudentNo(Long.parseLong(field(fields, columns[0])));
+            student.setFirstName(field(fields, columns[1]));
+            student.setMiddleName(field(fields, columns[2]));
+            student.setLastName(field(fields, columns[3]));
+            student.setProgramId(field(fields, columns[4]));
+            student.setYearLevel(field(fields, columns[5]));
+            if (student.getFirstName() == null || student.getLastName() == null) {
+                throw new IllegalArgumentException("first and last name are required");
+            }
+        } catch (IllegalArgumentException e) {
+            reject(line, e.getMessage());
+            return new Row(line, null, null, null);
+        }
+        Photo photo = photoDir == null ? null : photo(student.getStudentNo(), photoDir);
+        return photo == null
+                ? new Row(line, student, null, null)
+                : new Row(line, student, photo.picture(), photo.variants());
+    }
+
+    // Normalized original plus its pre-sized copies, or null when there is no readable photo
+    private Photo photo(long studentNo, Path photoDir) {
+        Path file = findPhoto(studentNo, photoDir);
+        if (file == null) {
+            missingPhotos.increment();
+            return null;
+        }
+        try {
+            BufferedImage image = StudentPhotos.decode(Files.readAllBytes(file));
+            if (image != null) {
+                BufferedImage normalized = StudentPhotos.fit(image, maxPhotoSide);
+                Photo photo = new Photo(StudentPhotos.encodeJpeg(normalized, JPEG_QUALITY),
+                        StudentPhotos.variants(normalized));
+                photos.increment();
+                return photo;
+            }
+        } catch (IOException e) {
+            // Reported below like any other unreadable photo
+        }
+        badPhotos.increment();
+        System.out.println("Unreadable photo " + file + ", student imported without it");
+        return null;
+    }
+
+    private static Path findPhoto(long studentNo, Path photoDir) {
+        for (String extension : PHOTO_EXTENSIONS) {
+            Path file = photoDir.resolve(studentNo + extension);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private void reject(long line, String reason) {
+        rejected.increment();
+        System.out.println("Skipped line " + line + ": " + reason);
+    }
+
+    private void progress(long start, long line) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s %d students (%.0f rows/s), %d photos, %d without photo, %d unreadable photos, %d rejected%n",
+                line < 0 ? "Imported" : "Line " + line + ":", imported, imported / seconds,
+                photos.sum(), missingPhotos.sum(), badPhotos.sum(), rejected.sum());
+    }
+
+    // Index of each expected column in the header, -1 for optional columns that are absent
+    private static int[] columns(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("Roster is empty");
+        }
+        int[] columns = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i] = -1;
+            for (int j = 0; j < header.size(); j++) {
+                if (header.get(j).trim().equalsIgnoreCase(COLUMNS[i])) {
+                    columns[i] = j;
+                }
+            }
+        }
+        for (int required : new int[]{0, 1, 3}) {
+            if (columns[required] < 0) {
+                throw new IllegalArgumentException("Roster has no " + COLUMNS[required] + " column");
+            }
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // One CSV record: comma separated, double quotes around fields that contain commas or quotes
+    static List<String> parseLine(String line) {
+        if (line == null) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\uFEFF') { // Byte order mark spreadsheet exports put in front of the header
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
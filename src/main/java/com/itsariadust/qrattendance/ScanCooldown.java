@@ -0,0 +1,50 @@
+package com.itsariadust.qrattendance;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Recently accepted payloads, each remembered for the cooldown period.
+// A code held in front of the camera decodes on every frame; repeats are dropped here,
+// right after decoding and before any database or UI work.
+public class ScanCooldown {
+    // Expired entries are swept once the map grows past this many payloads
+    private static final int SWEEP_THRESHOLD = 256;
+
+    private final long cooldownNanos;
+    private final ConcurrentHashMap<String, Long> acceptedAt = new ConcurrentHashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+
+    public ScanCooldown(long cooldownMillis) {
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+    }
+
+    // True if the payload should be processed, false if it was accepted within the cooldown
+    public boolean tryAccept(String payload) {
+        long now = System.nanoTime();
+        boolean[] accepted = new boolean[1];
+        acceptedAt.compute(payload, (key, last) -> {
+            if (last != null && now - last < cooldownNanos) {
+                return last;
+            }
+            accepted[0] = true;
+            return now;
+        });
+        if (!accepted[0]) {
+            suppressed.increment();
+            return false;
+        }
+        if (acceptedAt.size() > SWEEP_THRESHOLD) {
+            acceptedAt.values().removeIf(last -> now - last >= cooldownNanos);
+        }
+        return true;
+    }
+
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+
+    public String stats() {
+        return String.format("scan cooldown tracked=%d suppressed=%d", acceptedAt.size(), suppressed.sum());
+    }
+}
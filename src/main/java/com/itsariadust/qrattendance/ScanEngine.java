@@ -0,0 +1,185 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.JdbiException;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs one ScanPipeline per frame source and a single persist stage they all share,
+// so every source goes through the same DAOs, caches and attendance writer.
+// Showing a recorded scan (student details and photo) is handed to a display thread, so a slow photo fetch
+// never holds up recording the next scan. Without a UI (headless replay) scans are recorded but nothing is displayed.
+public class ScanEngine {
+    // How long a scanned student's info and photo stay on screen
+    static final long HOLD_MILLIS = 3000;
+
+    private static final int SCAN_QUEUE_SIZE = 64;
+
+    // Scans waiting to be shown; when the display falls behind the oldest is skipped, it would be replaced anyway
+    private static final int DISPLAY_QUEUE_SIZE = 4;
+
+    // A scan, or with drained set, a marker the persist stage counts down once every scan ahead of it is done
+    private record Scan(ScanPipeline source, String studentNo, CountDownLatch drained) {}
+
+    private final QRAttendance system;
+    private final SystemUI ui;
+    private final List<ScanPipeline> pipelines = new ArrayList<>();
+    private final BlockingQueue<Scan> scans = new ArrayBlockingQueue<>(SCAN_QUEUE_SIZE);
+
+    private volatile boolean running;
+    private Thread persistThread;
+    private final ThreadPoolExecutor display = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(DISPLAY_QUEUE_SIZE), runnable -> {
+                Thread thread = new Thread(runnable, "scan-display");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+
+    public ScanEngine(QRAttendance system, SystemUI ui) {
+        this.system = system;
+        this.ui = ui;
+    }
+
+    public ScanPipeline addSource(FrameSource source, PreviewPanel preview, boolean lossless) {
+        ScanPipeline pipeline = new ScanPipeline(source, preview, lossless, system, this);
+        pipelines.add(pipeline);
+        return pipeline;
+    }
+
+    public void start() {
+        running = true;
+        persistThread = new Thread(this::persistLoop, "scan-persist");
+        persistThread.setDaemon(true);
+        persistThread.start();
+        for (ScanPipeline pipeline : pipelines) {
+            pipeline.start();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        for (ScanPipeline pipeline : pipelines) {
+            pipeline.stop();
+        }
+        persistThread.interrupt();
+        display.shutdownNow();
+    }
+
+    // Block until every finite source is exhausted and all of its scans have been recorded
+    public void awaitCompletion() throws InterruptedException {
+        for (ScanPipeline pipeline : pipelines) {
+            pipeline.awaitFinished();
+        }
+        CountDownLatch drained = new CountDownLatch(1);
+        scans.put(new Scan(null, null, drained));
+        drained.await();
+    }
+
+    // Called from decode stages; drops the scan rather than stall a camera, unless asked to wait
+    void submit(ScanPipeline source, String studentNo, boolean wait) {
+        if (wait) {
+            try {
+                scans.put(new Scan(source, studentNo, null));
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!scans.offer(new Scan(source, studentNo, null))) {
+            System.out.println("Scan queue full, dropping scan for " + studentNo + " from " + source.getName());
+        }
+    }
+
+    // Validates and records scans against the local store, then queues them for display
+    private void persistLoop() {
+        ScanMetrics metrics = QRAttendance.scanMetrics;
+        while (running) {
+            Scan scan;
+            try {
+                scan = scans.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (scan.drained() != null) {
+                scan.drained().countDown();
+                continue;
+            }
+            try {
+                long lookupStart = System.nanoTime();
+                boolean valid = system.checkStudent(QRAttendance.roster, scan.studentNo());
+                metrics.record(ScanMetrics.Stage.LOOKUP, lookupStart);
+                if (!valid) {
+                    invalid.increment();
+                    metrics.invalidStudent();
+                    if (ui != null) {
+                        SwingUtilities.invokeLater(ui::invalidStudentDialog);
+                    }
+                    continue;
+                }
+                Attendance attendance = system.createEntry(QRAttendance.attendanceState, QRAttendance.attendanceWriter, scan.studentNo());
+                recorded.increment();
+                metrics.recorded();
+                if (ui != null) {
+                    display.execute(() -> show(scan, attendance));
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (JdbiException e) {
+                metrics.dbError();
+                e.printStackTrace(); // Keep the stage alive for the next scan
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Keep the stage alive for the next scan
+            }
+        }
+    }
+
+    // Runs on the display thread; the photo may come from MySQL, which can be slow or down
+    private void show(Scan scan, Attendance attendance) {
+        ScanMetrics metrics = QRAttendance.scanMetrics;
+        try {
+            ArrayList<String> studentInfo = system.getStudentInfo(QRAttendance.roster, attendance);
+            long photoStart = System.nanoTime();
+            ImageIcon photo = system.getStudentImage(QRAttendance.photoCache, studentInfo);
+            metrics.record(ScanMetrics.Stage.PHOTO, photoStart);
+            PreviewPanel preview = scan.source().getPreview();
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                ui.showStudent(preview, studentInfo, photo, HOLD_MILLIS);
+                metrics.record(ScanMetrics.Stage.RENDER, posted);
+            });
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // The scan is recorded either way
+        }
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    public long getFramesDecoded() {
+        long frames = 0;
+        for (ScanPipeline pipeline : pipelines) {
+            frames += pipeline.getFramesDecoded();
+        }
+        return frames;
+    }
+
+    public String stats() {
+        StringBuilder stats = new StringBuilder(String.format("scan engine queued=%d recorded=%d invalid=%d",
+                scans.size(), recorded.sum(), invalid.sum()));
+        for (ScanPipeline pipeline : pipelines) {
+            stats.append(System.lineSeparator()).append("  ").append(pipeline.stats());
+        }
+        return stats.toString();
+    }
+}
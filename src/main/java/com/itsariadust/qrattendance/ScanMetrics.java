@@ -0,0 +1,190 @@
+package com.itsariadust.qrattendance;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+// Latency per scan loop stage plus the loop's counters, shared by every gate in the process.
+// Recording is a nanoTime pair and a few atomic adds; percentiles are only computed when read.
+public class ScanMetrics implements ScanMetricsMXBean {
+    public enum Stage {
+        CAPTURE,  // FrameSource.read
+        DECODE,   // QR locate and decode
+        LOOKUP,   // Roster check of the scanned number
+        INSERT,   // Attendance batch insert
+        PHOTO,    // Photo fetch, decode and scale
+        RENDER;   // Hand-off to the EDT until the scan is on screen
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+
+    private final LongAdder framesCaptured = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder invalidStudents = new LongAdder();
+    private final LongAdder dbErrors = new LongAdder();
+
+    public ScanMetrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    // Record the time since startNanos against a stage
+    public void record(Stage stage, long startNanos) {
+        stages[stage.ordinal()].recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    public void frameCaptured() {
+        framesCaptured.increment();
+    }
+
+    public void frameDropped() {
+        framesDropped.increment();
+    }
+
+    public void scan() {
+        scans.increment();
+    }
+
+    public void recorded() {
+        recorded.increment();
+    }
+
+    public void invalidStudent() {
+        invalidStudents.increment();
+    }
+
+    public void dbError() {
+        dbErrors.increment();
+    }
+
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(this, new ObjectName("com.itsariadust.qrattendance:type=ScanMetrics"));
+        } catch (JMException e) {
+            System.out.println("Could not register scan metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    // Print the summary every periodMillis on a daemon thread
+    public void startLogging(long periodMillis) {
+        ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(() -> System.out.println(getSummary()), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getFramesCaptured() {
+        return framesCaptured.sum();
+    }
+
+    @Override
+    public long getFramesDropped() {
+        return framesDropped.sum();
+    }
+
+    @Override
+    public double getFrameDropRate() {
+        long captured = framesCaptured.sum();
+        return captured == 0 ? 0 : (double) framesDropped.sum() / captured;
+    }
+
+    @Override
+    public long getScans() {
+        return scans.sum();
+    }
+
+    @Override
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    @Override
+    public long getInvalidStudents() {
+        return invalidStudents.sum();
+    }
+
+    @Override
+    public long getDbErrors() {
+        return dbErrors.sum();
+    }
+
+    @Override
+    public Map<String, Long> getStageCounts() {
+        return perStage(LatencyHistogram::count);
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            values.put(stage.label(), histogram(stage).meanMicros());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getP50Micros() {
+        return perStage(h -> h.percentileMicros(50));
+    }
+
+    @Override
+    public Map<String, Long> getP95Micros() {
+        return perStage(h -> h.percentileMicros(95));
+    }
+
+    @Override
+    public Map<String, Long> getP99Micros() {
+        return perStage(h -> h.percentileMicros(99));
+    }
+
+    @Override
+    public Map<String, Long> getMaxMicros() {
+        return perStage(LatencyHistogram::maxMicros);
+    }
+
+    private Map<String, Long> perStage(ToLongFunction<LatencyHistogram> value) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            values.put(stage.label(), value.applyAsLong(histogram(stage)));
+        }
+        return values;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder(String.format(
+                "scan metrics frames=%d dropped=%d (%.1f%%) scans=%d recorded=%d invalid=%d dbErrors=%d",
+                getFramesCaptured(), getFramesDropped(), getFrameDropRate() * 100,
+                getScans(), getRecorded(), getInvalidStudents(), getDbErrors()));
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram h = histogram(stage);
+            summary.append(System.lineSeparator()).append(String.format(
+                    "  %-7s n=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                    stage.label(), h.count(), h.meanMicros() / 1000, h.percentileMicros(50) / 1000.0,
+                    h.percentileMicros(95) / 1000.0, h.percentileMicros(99) / 1000.0, h.maxMicros() / 1000.0));
+        }
+        return summary.toString();
+    }
+}
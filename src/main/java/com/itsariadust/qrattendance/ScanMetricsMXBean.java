@@ -0,0 +1,34 @@
+package com.itsariadust.qrattendance;
+
+import java.util.Map;
+
+// Scan loop health as published over JMX; stage maps are keyed by stage name (capture, decode, ...)
+public interface ScanMetricsMXBean {
+    long getFramesCaptured();
+
+    long getFramesDropped();
+
+    double getFrameDropRate();
+
+    long getScans();
+
+    long getRecorded();
+
+    long getInvalidStudents();
+
+    long getDbErrors();
+
+    Map<String, Long> getStageCounts();
+
+    Map<String, Double> getMeanMicros();
+
+    Map<String, Long> getP50Micros();
+
+    Map<String, Long> getP95Micros();
+
+    Map<String, Long> getP99Micros();
+
+    Map<String, Long> getMaxMicros();
+
+    String getSummary();
+}
@@ -0,0 +1,162 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Capture and decode stages for one frame source, each on its own platform thread: both spend nearly all their
+// time in blocking OpenCV calls (VideoCapture.read, detect/decode), which would pin a virtual thread's carrier.
+// Decoded payloads go to the ScanEngine shared by all sources; neither stage ever waits on it.
+// A lossless pipeline makes capture wait for the decoder instead of dropping frames, for replaying footage.
+public class ScanPipeline {
+    private static final int FRAME_BUFFERS = 2;
+
+    // Pause after a read that returned no frame, doubled up to the maximum while the source stays dry
+    private static final long MIN_READ_BACKOFF_MILLIS = 1;
+    private static final long MAX_READ_BACKOFF_MILLIS = 100;
+
+    private final FrameSource source;
+    private final PreviewPanel preview;
+    private final boolean lossless;
+    private final QRAttendance system;
+    private final ScanEngine engine;
+
+    // Frames cycle between free and ready so capture never allocates per frame
+    private final BlockingQueue<Mat> freeFrames = new ArrayBlockingQueue<>(FRAME_BUFFERS);
+    private final BlockingQueue<Mat> readyFrames = new ArrayBlockingQueue<>(FRAME_BUFFERS);
+
+    private volatile boolean running;
+    private volatile boolean captureDone;
+    private Thread captureThread;
+    private Thread decodeThread;
+
+    // Per-camera counters
+    private final LongAdder framesCaptured = new LongAdder();
+    private final LongAdder framesDecoded = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+    private final LongAdder scans = new LongAdder();
+
+    public ScanPipeline(FrameSource source, PreviewPanel preview, boolean lossless, QRAttendance system, ScanEngine engine) {
+        this.source = source;
+        this.preview = preview;
+        this.lossless = lossless;
+        this.system = system;
+        this.engine = engine;
+        for (int i = 0; i < FRAME_BUFFERS; i++) {
+            freeFrames.add(new Mat());
+        }
+    }
+
+    public String getName() {
+        return source.getName();
+    }
+
+    public PreviewPanel getPreview() {
+        return preview;
+    }
+
+    public void start() {
+        running = true;
+        captureThread = Thread.ofPlatform().name("capture-" + getName()).daemon(true).start(this::captureLoop);
+        decodeThread = Thread.ofPlatform().name("decode-" + getName()).daemon(true).start(this::decodeLoop);
+    }
+
+    // Wait until a finite source has been read to the end and every frame decoded
+    public void awaitFinished() throws InterruptedException {
+        captureThread.join();
+        decodeThread.join();
+    }
+
+    public void stop() {
+        running = false;
+        captureThread.interrupt();
+        decodeThread.interrupt();
+    }
+
+    // Reads frames as fast as the source delivers them and, unless lossless, only ever offers them downstream
+    private void captureLoop() {
+        ScanMetrics metrics = QRAttendance.scanMetrics;
+        Mat frame = new Mat();
+        long backoff = MIN_READ_BACKOFF_MILLIS;
+        try {
+            while (running) {
+                long readStart = System.nanoTime();
+                if (!source.read(frame)) {
+                    if (source.isFinished()) {
+                        break;
+                    }
+                    Thread.sleep(backoff); // Unplugged or still warming up; don't spin on it
+                    backoff = Math.min(backoff * 2, MAX_READ_BACKOFF_MILLIS);
+                    continue;
+                }
+                backoff = MIN_READ_BACKOFF_MILLIS;
+                metrics.record(ScanMetrics.Stage.CAPTURE, readStart);
+                framesCaptured.increment();
+                metrics.frameCaptured();
+                Mat buffer = lossless ? freeFrames.take() : freeFrames.poll();
+                if (buffer != null) {
+                    frame.copyTo(buffer);
+                    readyFrames.offer(buffer);
+                } else {
+                    framesDropped.increment(); // Decoder still busy with earlier frames
+                    metrics.frameDropped();
+                }
+                if (preview != null) {
+                    preview.publish(frame);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopping
+        } finally {
+            captureDone = true;
+            source.close();
+        }
+    }
+
+    private void decodeLoop() {
+        QRDecoder qrDecoder = new QRDecoder(QRAttendance.qrDetectScale);
+        ScanMetrics metrics = QRAttendance.scanMetrics;
+        while (running) {
+            Mat frame;
+            try {
+                frame = readyFrames.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (frame == null) {
+                if (captureDone && readyFrames.isEmpty()) {
+                    break; // Source exhausted and nothing left to decode
+                }
+                continue;
+            }
+            String studentNo;
+            long decodeStart = System.nanoTime();
+            try {
+                studentNo = system.detectQRCode(frame, qrDecoder);
+                metrics.record(ScanMetrics.Stage.DECODE, decodeStart);
+            } finally {
+                freeFrames.offer(frame);
+            }
+            framesDecoded.increment();
+            if (studentNo.isEmpty() || !QRAttendance.scanCooldown.tryAccept(studentNo)) {
+                continue;
+            }
+            scans.increment();
+            metrics.scan();
+            engine.submit(this, studentNo, lossless);
+        }
+        qrDecoder.release();
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded.sum();
+    }
+
+    public String stats() {
+        return String.format("%s frames=%d decoded=%d dropped=%d scans=%d",
+                getName(), framesCaptured.sum(), framesDecoded.sum(), framesDropped.sum(), scans.sum());
+    }
+}
@@ -0,0 +1,305 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+// Brings the MySQL schema up to date from the versioned scripts under /db/migration.
+// Applied versions are recorded in schema_version with a checksum, so each script runs once per database.
+// The optional partitioning migration only runs when enabled, and may be applied later, after newer versions.
+// Trigger migrations only run against MySQL; the H2 stand-in used by tests has no SQL triggers.
+// MySQL commits every DDL statement on its own, so a script that failed halfway is left partly applied and
+// unrecorded. Scripts run statement by statement, skipping indexes, columns, keys and partitioning the table
+// already has, so the next start finishes the script instead of failing on the first duplicate.
+// A partitioned attendance table also gets next year's partition split off pmax at every start, while pmax is
+// still empty and the split costs nothing.
+public class SchemaMigrator {
+    private record Migration(int version, String description, String script, boolean optional, boolean mysqlOnly) {}
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "create tables", "V1__create_tables.sql", false, false),
+            new Migration(2, "attendance indexes", "V2__attendance_indexes.sql", false, false),
+            new Migration(3, "partition attendance by year", "V3__partition_attendance.sql", true, false),
+            new Migration(4, "student picture variants", "V4__student_picture_variants.sql", false, false),
+            new Migration(5, "attendance sync key", "V5__attendance_sync_key.sql", false, false),
+            new Migration(6, "clear stale picture variants", "V6__clear_stale_picture_variants.sql", false, true));
+
+    // Serializes kiosks starting against the same database at once (MySQL only)
+    private static final String LOCK_NAME = "qrattendance_schema";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    // Statements that can tell from the catalog whether they already ran
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_COLUMN = Pattern.compile(
+            "ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+COLUMN\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern REPLACE_PRIMARY_KEY = Pattern.compile(
+            "ALTER\\s+TABLE\\s+(\\w+)\\s+DROP\\s+PRIMARY\\s+KEY\\s*,\\s*ADD\\s+PRIMARY\\s+KEY\\s*\\(([^)]*)\\)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern PARTITION_BY = Pattern.compile(
+            "ALTER\\s+TABLE\\s+(\\w+)\\s+PARTITION\\s+BY", Pattern.CASE_INSENSITIVE);
+    private static final Pattern YEAR_PARTITION = Pattern.compile("p(\\d{4})");
+
+    private final Jdbi jdbi;
+    private final boolean partitionAttendance;
+
+    public SchemaMigrator(Jdbi jdbi, boolean partitionAttendance) {
+        this.jdbi = jdbi;
+        this.partitionAttendance = partitionAttendance;
+    }
+
+    public void migrate() {
+        migrate(Integer.MAX_VALUE);
+    }
+
+    // Apply pending migrations up to and including the target version
+    public void migrate(int targetVersion) {
+        try (Handle handle = jdbi.open()) {
+            boolean mysql = isMySql(handle);
+            if (mysql) {
+                // 1 when taken, 0 on timeout, NULL on an error such as the thread being killed
+                Integer locked = handle.createQuery("SELECT GET_LOCK(:name, :timeout)")
+                        .bind("name", LOCK_NAME)
+                        .bind("timeout", LOCK_TIMEOUT_SECONDS)
+                        .mapTo(Integer.class)
+                        .findOne()
+                        .orElse(null);
+                if (locked == null) {
+                    throw new IllegalStateException("Could not take the schema migration lock");
+                }
+                if (locked != 1) {
+                    throw new IllegalStateException("Timed out waiting for another instance to finish migrating");
+                }
+            }
+            try {
+                migrate(handle, targetVersion, mysql);
+                if (mysql) {
+                    extendPartitions(handle, "attendance");
+                }
+            } finally {
+                if (mysql) {
+                    handle.createQuery("SELECT RELEASE_LOCK(:name)").bind("name", LOCK_NAME).mapTo(Integer.class).findOne();
+                }
+            }
+        }
+    }
+
+    private void migrate(Handle handle, int targetVersion, boolean mysql) {
+        handle.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    Version INT NOT NULL PRIMARY KEY,
+                    Description VARCHAR(200) NOT NULL,
+                    Checksum BIGINT NOT NULL,
+                    InstalledOn DATETIME NOT NULL
+                )
+                """);
+        Map<Integer, Long> applied = new HashMap<>();
+        handle.createQuery("SELECT Version, Checksum FROM schema_version")
+                .map((rs, ctx) -> Map.entry(rs.getInt("Version"), rs.getLong("Checksum")))
+                .forEach(entry -> applied.put(entry.getKey(), entry.getValue()));
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() > targetVersion) {
+                break;
+            }
+            String sql = load(migration.script());
+            long checksum = checksum(sql);
+            Long appliedChecksum = applied.get(migration.version());
+            if (appliedChecksum != null) {
+                if (appliedChecksum != checksum) {
+                    System.out.println("Warning: migration V" + migration.version() + " was edited after it was applied");
+                }
+                continue;
+            }
+            if ((migration.optional() && !partitionAttendance) || (migration.mysqlOnly() && !mysql)) {
+                continue;
+            }
+
+            System.out.println("Applying migration V" + migration.version() + " (" + migration.description() + ")");
+            long start = System.nanoTime();
+            for (String statement : handle.createScript(sql).getStatements()) {
+                if (alreadyApplied(handle, statement)) {
+                    System.out.println("Migration V" + migration.version() + ": skipping a statement already applied: "
+                            + statement.strip().lines().findFirst().orElse(""));
+                    continue;
+                }
+                handle.execute(statement);
+            }
+            handle.createUpdate("""
+                            INSERT INTO schema_version (Version, Description, Checksum, InstalledOn)
+                            VALUES (:version, :description, :checksum, :installedOn)
+                            """)
+                    .bind("version", migration.version())
+                    .bind("description", migration.description())
+                    .bind("checksum", checksum)
+                    .bind("installedOn", Timestamp.valueOf(LocalDateTime.now()))
+                    .execute();
+            System.out.printf("Migration V%d done in %.1fs%n", migration.version(), (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    // Whether the change a statement makes is already there, e.g. from a run that failed after it
+    private static boolean alreadyApplied(Handle handle, String statement) {
+        String sql = statement.strip();
+        Matcher m;
+        if ((m = CREATE_INDEX.matcher(sql)).lookingAt()) {
+            return hasIndex(handle, m.group(2), m.group(1));
+        }
+        if ((m = ADD_COLUMN.matcher(sql)).lookingAt()) {
+            return hasColumn(handle, m.group(1), m.group(2));
+        }
+        if ((m = REPLACE_PRIMARY_KEY.matcher(sql)).lookingAt()) {
+            List<String> wanted = new ArrayList<>();
+            for (String column : m.group(2).split(",")) {
+                wanted.add(column.strip().toUpperCase(Locale.ROOT));
+            }
+            return primaryKey(handle, m.group(1)).equals(wanted);
+        }
+        if ((m = PARTITION_BY.matcher(sql)).lookingAt()) {
+            return !partitions(handle, m.group(1)).isEmpty();
+        }
+        return false;
+    }
+
+    private static boolean hasIndex(Handle handle, String table, String index) {
+        return catalog(handle, table, (meta, name) -> meta.getIndexInfo(
+                handle.getConnection().getCatalog(), handle.getConnection().getSchema(), name, false, false), "INDEX_NAME")
+                .contains(index.toUpperCase(Locale.ROOT));
+    }
+
+    private static boolean hasColumn(Handle handle, String table, String column) {
+        return catalog(handle, table, (meta, name) -> meta.getColumns(
+                handle.getConnection().getCatalog(), handle.getConnection().getSchema(), name, null), "COLUMN_NAME")
+                .contains(column.toUpperCase(Locale.ROOT));
+    }
+
+    // Primary key columns in key order
+    private static List<String> primaryKey(Handle handle, String table) {
+        Map<Short, String> columns = new TreeMap<>();
+        try {
+            DatabaseMetaData meta = handle.getConnection().getMetaData();
+            try (ResultSet rs = meta.getPrimaryKeys(handle.getConnection().getCatalog(),
+                    handle.getConnection().getSchema(), identifier(meta, table))) {
+                while (rs.next()) {
+                    columns.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME").toUpperCase(Locale.ROOT));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the primary key of " + table, e);
+        }
+        return new ArrayList<>(columns.values());
+    }
+
+    private interface CatalogQuery {
+        ResultSet query(DatabaseMetaData meta, String table) throws SQLException;
+    }
+
+    // One column of a metadata result, upper-cased, with the table name in the case the database stores it
+    private static List<String> catalog(Handle handle, String table, CatalogQuery query, String column) {
+        List<String> values = new ArrayList<>();
+        try {
+            DatabaseMetaData meta = handle.getConnection().getMetaData();
+            try (ResultSet rs = query.query(meta, identifier(meta, table))) {
+                while (rs.next()) {
+                    String value = rs.getString(column);
+                    if (value != null) {
+                        values.add(value.toUpperCase(Locale.ROOT));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the catalog for " + table, e);
+        }
+        return values;
+    }
+
+    private static String identifier(DatabaseMetaData meta, String name) throws SQLException {
+        if (meta.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase(Locale.ROOT);
+        }
+        return meta.storesLowerCaseIdentifiers() ? name.toLowerCase(Locale.ROOT) : name;
+    }
+
+    // Partition names of a MySQL table, empty when it isn't partitioned (or the database isn't MySQL)
+    private static List<String> partitions(Handle handle, String table) {
+        if (!isMySql(handle)) {
+            return List.of();
+        }
+        return handle.createQuery("""
+                        SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+                        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = :table AND PARTITION_NAME IS NOT NULL
+                        ORDER BY PARTITION_ORDINAL_POSITION
+                        """)
+                .bind("table", table)
+                .mapTo(String.class)
+                .list();
+    }
+
+    // V3 creates yearly partitions up to p2027 and a catch-all pmax. Each start splits pYYYY partitions off pmax
+    // up to next year, so rows keep landing in their own year rather than piling up in pmax, which couldn't be
+    // dropped on its own and would make the eventual split copy them all.
+    private static void extendPartitions(Handle handle, String table) {
+        List<String> partitions = partitions(handle, table);
+        if (!partitions.contains("pmax")) {
+            return; // Not partitioned, or partitioned some other way by hand
+        }
+        int lastYear = 0;
+        for (String partition : partitions) {
+            Matcher m = YEAR_PARTITION.matcher(partition);
+            if (m.matches()) {
+                lastYear = Math.max(lastYear, Integer.parseInt(m.group(1)));
+            }
+        }
+        int throughYear = LocalDate.now().getYear() + 1;
+        for (int year = lastYear + 1; lastYear > 0 && year <= throughYear; year++) {
+            System.out.println("Adding partition p" + year + " to " + table);
+            handle.execute("ALTER TABLE " + table + " REORGANIZE PARTITION pmax INTO ("
+                    + "PARTITION p" + year + " VALUES LESS THAN (TO_DAYS('" + (year + 1) + "-01-01')), "
+                    + "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+        }
+    }
+
+    private static boolean isMySql(Handle handle) {
+        try {
+            return handle.getConnection().getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static String load(String script) {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream("/db/migration/" + script)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing migration script " + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -4,17 +4,89 @@ import org.jdbi.v3.sqlobject.SingleValue;
 import org.jdbi.v3.sqlobject.statement.*;
 import org.jdbi.v3.sqlobject.customizer.*;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface StudentDao {
 	@SqlQuery("""
-			SELECT * FROM students WHERE StudentNo = :studentNo
+			SELECT StudentNo, FirstName, MiddleName, LastName, ProgramID, YearLevel
+			FROM students WHERE StudentNo = :studentNo
 			""")
 	Optional<Students> findStudent(@Bind("studentNo") String studentNo);
 
+	// Primary key probe only, no row data transferred
+	@SqlQuery("""
+			SELECT EXISTS(SELECT 1 FROM students WHERE StudentNo = :studentNo)
+			""")
+	boolean studentExists(@Bind("studentNo") long studentNo);
+
+	// Roster preload, without the picture BLOBs
+	@SqlQuery("""
+			SELECT StudentNo, FirstName, MiddleName, LastName, ProgramID, YearLevel FROM students
+			""")
+	List<Students> findAllStudents();
+
 	@SqlQuery("""
 			SELECT Picture FROM students WHERE StudentNo = :studentNo
 			""")
 	@SingleValue
 	byte[] findPicture(@Bind("studentNo") String studentNo);
+
+	// Pre-sized copies for the scanner panel and the log window; the original until the backfill reaches the student
+	@SqlQuery("""
+			SELECT COALESCE(PictureDisplay, Picture) FROM students WHERE StudentNo = :studentNo
+			""")
+	@SingleValue
+	byte[] findDisplayPicture(@Bind("studentNo") String studentNo);
+
+	@SqlQuery("""
+			SELECT COALESCE(PictureThumb, Picture) FROM students WHERE StudentNo = :studentNo
+			""")
+	@SingleValue
+	byte[] findThumbPicture(@Bind("studentNo") String studentNo);
+
+	// Next students after a key whose picture still lacks its pre-sized copies (every student with one when all)
+	@SqlQuery("""
+			SELECT StudentNo FROM students
+			WHERE StudentNo > :after AND Picture IS NOT NULL
+			AND (:all OR PictureDisplay IS NULL OR PictureThumb IS NULL)
+			ORDER BY StudentNo
+			LIMIT :limit
+			""")
+	List<Long> findStudentsMissingVariants(@Bind("after") long after, @Bind("all") boolean all, @Bind("limit") int limit);
+
+	@SqlBatch("""
+			UPDATE students SET PictureDisplay = :display, PictureThumb = :thumb WHERE StudentNo = :studentNo
+			""")
+	void updatePictureVariants(@Bind("studentNo") List<Long> studentNos, @Bind("display") List<byte[]> displays,
+			@Bind("thumb") List<byte[]> thumbs);
+
+	// Bulk import: adds new students and updates existing ones in place, so rerunning an import never duplicates
+	// anyone. A row without a picture keeps the one already stored, along with its pre-sized copies.
+	@SqlBatch("""
+			INSERT INTO students (StudentNo, FirstName, MiddleName, LastName, ProgramID, YearLevel,
+				Picture, PictureDisplay, PictureThumb)
+			VALUES(
+				:studentNo,
+				:firstName,
+				:middleName,
+				:lastName,
+				:programId,
+				:yearLevel,
+				:picture,
+				:display,
+				:thumb
+			)
+			ON DUPLICATE KEY UPDATE
+				FirstName = VALUES(FirstName),
+				MiddleName = VALUES(MiddleName),
+				LastName = VALUES(LastName),
+				ProgramID = VALUES(ProgramID),
+				YearLevel = VALUES(YearLevel),
+				Picture = COALESCE(VALUES(Picture), Picture),
+				PictureDisplay = COALESCE(VALUES(PictureDisplay), PictureDisplay),
+				PictureThumb = COALESCE(VALUES(PictureThumb), PictureThumb)
+			""")
+	void upsertStudents(@BindBean List<Students> students, @Bind("picture") List<byte[]> pictures,
+			@Bind("display") List<byte[]> displays, @Bind("thumb") List<byte[]> thumbs);
 }
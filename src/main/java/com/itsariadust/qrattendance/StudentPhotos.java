@@ -0,0 +1,97 @@
+package com.itsariadust.qrattendance;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+// Decoding, resizing and JPEG encoding for student pictures before they are stored
+final class StudentPhotos {
+    // Sides of the pre-sized copies stored next to each picture: the scanner panel and the log window
+    static final int DISPLAY_SIZE = 1000;
+    static final int THUMB_SIZE = 300;
+    private static final float VARIANT_QUALITY = 0.85f;
+
+    record Variants(byte[] display, byte[] thumb) {}
+
+    private StudentPhotos() {}
+
+    // Decoded image, or null if the bytes aren't an image ImageIO can read
+    static BufferedImage decode(byte[] data) throws IOException {
+        return data == null || data.length == 0 ? null : ImageIO.read(new ByteArrayInputStream(data));
+    }
+
+    // Scaled down to fit within maxSide x maxSide, keeping the aspect ratio; never scaled up.
+    // Halving steps with bilinear filtering come close to SCALE_SMOOTH at a fraction of the cost.
+    static BufferedImage fit(BufferedImage image, int maxSide) {
+        double scale = Math.min(1.0, (double) maxSide / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        return scale(image, width, height);
+    }
+
+    // Stretched to exactly width x height, the way the panels have always drawn photos
+    static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() == width && current.getHeight() == height) {
+            return toRgb(current);
+        }
+        return resize(current, width, height);
+    }
+
+    // Display and thumbnail JPEGs for a picture; the thumbnail is scaled from the display copy
+    static Variants variants(BufferedImage picture) throws IOException {
+        BufferedImage display = scale(picture, DISPLAY_SIZE, DISPLAY_SIZE);
+        BufferedImage thumb = scale(display, THUMB_SIZE, THUMB_SIZE);
+        return new Variants(encodeJpeg(display, VARIANT_QUALITY), encodeJpeg(thumb, VARIANT_QUALITY));
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(toRgb(image), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        g.setColor(Color.WHITE); // Behind transparent areas, which JPEG can't keep
+        g.fillRect(0, 0, width, height);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return resized;
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return rgb;
+    }
+}
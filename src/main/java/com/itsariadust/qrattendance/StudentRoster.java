@@ -0,0 +1,285 @@
+package com.itsariadust.qrattendance;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+// In-memory roster keyed by the numeric student number.
+// Uses open addressing over primitive arrays so lookups never box the key.
+// A Bloom filter holding every rostered student sits in front of the database fallback, so payloads that
+// aren't student numbers (posters, phone screens, other barcodes) are turned away without a query.
+public class StudentRoster {
+    private static final long EMPTY = 0; // Student numbers are never 0
+    private static final float LOAD_FACTOR = 0.5f;
+
+    // The filter is rebuilt once this share of its keys are students no longer on the roster
+    private static final double MAX_STALE_SHARE = 0.1;
+
+    private final StudentDao studentDao;
+
+    private long[] keys;
+    private Students[] values;
+    private int size;
+
+    private final int filterExpected;
+    private final double filterFalsePositiveRate;
+    private BloomFilter filter;
+    private int staleKeys;
+
+    // Digit counts seen in rostered student numbers; payloads outside them can't be a student
+    private int minDigits;
+    private int maxDigits;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder formatRejects = new LongAdder();
+    private final LongAdder filterRejects = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public StudentRoster(StudentDao studentDao, int filterExpected, double filterFalsePositiveRate) {
+        this.studentDao = studentDao;
+        this.filterExpected = filterExpected;
+        this.filterFalsePositiveRate = filterFalsePositiveRate;
+        filter = new BloomFilter(filterExpected, filterFalsePositiveRate);
+        allocate(1024);
+    }
+
+    // Reload the whole roster from the database. The filter is updated in place, since re-adding known
+    // students costs nothing, unless the roster has outgrown it or too many departed students linger in it.
+    public void refresh() {
+        List<Students> students = studentDao.findAllStudents();
+        synchronized (this) {
+            long[] oldKeys = keys;
+            int oldSize = size;
+            allocate(students.size());
+            for (Students student : students) {
+                insert(student);
+            }
+            int departed = 0;
+            for (long key : oldKeys) {
+                if (key != EMPTY && keys[indexOf(key)] != key) {
+                    departed++;
+                }
+            }
+            staleKeys += departed;
+            int arrived = size - (oldSize - departed);
+
+            if (staleKeys > filter.getExpected() * MAX_STALE_SHARE
+                    || filter.getInsertions() + arrived > filter.getExpected()) {
+                filter = new BloomFilter(Math.max(filterExpected, students.size() * 2), filterFalsePositiveRate);
+                staleKeys = 0;
+                minDigits = 0;
+                maxDigits = 0;
+            }
+            for (Students student : students) {
+                addToFilter(student.getStudentNo());
+            }
+        }
+    }
+
+    // Cached lookup, falling back to the database on a miss the filter can't rule out
+    public Optional<Students> find(long studentNo) {
+        if (studentNo == EMPTY) {
+            return Optional.empty();
+        }
+        Students student;
+        synchronized (this) {
+            student = values[indexOf(studentNo)];
+            if (student == null && !filter.mightContain(studentNo)) {
+                filterRejects.increment();
+                return Optional.empty();
+            }
+        }
+        if (student != null) {
+            hits.increment();
+            return Optional.of(student);
+        }
+        misses.increment();
+        Optional<Students> loaded = studentDao.findStudent(Long.toString(studentNo));
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    // Existence check that never pulls a row; a cached header counts as a hit
+    public boolean contains(long studentNo) {
+        if (studentNo == EMPTY) {
+            return false;
+        }
+        synchronized (this) {
+            if (values[indexOf(studentNo)] != null) {
+                hits.increment();
+                return true;
+            }
+            if (!filter.mightContain(studentNo)) {
+                filterRejects.increment();
+                return false; // Definitely not a student
+            }
+        }
+        misses.increment();
+        boolean exists = studentDao.studentExists(studentNo);
+        if (!exists) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    // Scanned payloads: only digits, and as many as rostered student numbers have, get as far as the filter.
+    // Digits are counted on the parsed number, as the roster counts them, so leading zeros don't matter.
+    public boolean contains(String studentNo) {
+        long parsed = parseStudentNo(studentNo);
+        int digits = parsed == EMPTY ? 0 : digits(parsed);
+        synchronized (this) {
+            if (parsed == EMPTY || (maxDigits > 0 && (digits < minDigits || digits > maxDigits))) {
+                formatRejects.increment();
+                return false;
+            }
+        }
+        return contains(parsed);
+    }
+
+    public Optional<Students> find(String studentNo) {
+        return find(parseStudentNo(studentNo));
+    }
+
+    public synchronized void put(Students student) {
+        if (student.getStudentNo() == EMPTY) {
+            return;
+        }
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+        insert(student);
+        addToFilter(student.getStudentNo());
+    }
+
+    // Drop one student so the next lookup goes back to the database; the filter keeps them until a rebuild
+    public synchronized void invalidate(long studentNo) {
+        int index = indexOf(studentNo);
+        if (keys[index] == EMPTY) {
+            return;
+        }
+        keys[index] = EMPTY;
+        values[index] = null;
+        size--;
+
+        // Re-insert the rest of the probe chain so later lookups still find their entries
+        int next = (index + 1) & (keys.length - 1);
+        while (keys[next] != EMPTY) {
+            Students moved = values[next];
+            keys[next] = EMPTY;
+            values[next] = null;
+            size--;
+            insert(moved);
+            next = (next + 1) & (keys.length - 1);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        allocate(keys.length / 2);
+    }
+
+    // Longest student number in the roster, or 0 before it is loaded
+    public synchronized int maxDigits() {
+        return maxDigits;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getRejected() {
+        return formatRejects.sum() + filterRejects.sum();
+    }
+
+    public synchronized String filterStats() {
+        return filter.stats() + " staleKeys=" + staleKeys;
+    }
+
+    public String stats() {
+        long h = hits.sum(), m = misses.sum();
+        double ratio = h + m == 0 ? 0 : (double) h / (h + m);
+        return String.format("roster size=%d hits=%d misses=%d hitRatio=%.3f formatRejects=%d filterRejects=%d falsePositives=%d, %s",
+                size(), h, m, ratio, formatRejects.sum(), filterRejects.sum(), falsePositives.sum(), filterStats());
+    }
+
+    // Student numbers come from QR payloads; anything non-numeric maps to the empty key
+    static long parseStudentNo(String studentNo) {
+        if (studentNo == null || studentNo.isEmpty() || studentNo.length() > 18) {
+            return EMPTY;
+        }
+        long value = 0;
+        for (int i = 0; i < studentNo.length(); i++) {
+            char c = studentNo.charAt(i);
+            if (c < '0' || c > '9') {
+                return EMPTY;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private void addToFilter(long studentNo) {
+        filter.put(studentNo);
+        int digits = digits(studentNo);
+        minDigits = minDigits == 0 ? digits : Math.min(minDigits, digits);
+        maxDigits = Math.max(maxDigits, digits);
+    }
+
+    private static int digits(long studentNo) {
+        return Long.toString(studentNo).length();
+    }
+
+    private void allocate(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new Students[capacity];
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Students[] oldValues = values;
+        keys = new long[capacity];
+        values = new Students[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insert(oldValues[i]);
+            }
+        }
+    }
+
+    private void insert(Students student) {
+        int index = indexOf(student.getStudentNo());
+        if (keys[index] == EMPTY) {
+            size++;
+        }
+        keys[index] = student.getStudentNo();
+        values[index] = student;
+    }
+
+    // Slot holding the key, or the empty slot where it would go
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = (int) mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
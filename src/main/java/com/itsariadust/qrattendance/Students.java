@@ -1,5 +1,6 @@
 package com.itsariadust.qrattendance;
 
+// Student header row. Pictures are fetched separately through StudentDao, pre-sized for the panel showing them
 public class Students {
 
   private long studentNo;
@@ -8,7 +9,6 @@ public class Students {
   private String lastName;
   private String programId;
   private String yearLevel;
-  private byte[] picture;
 
 
   public long getStudentNo() {
@@ -64,13 +64,4 @@ public class Students {
     this.yearLevel = yearLevel;
   }
 
-
-  public byte[] getPicture() {
-    return picture;
-  }
-
-  public void setPicture(byte[] picture) {
-    this.picture = picture;
-  }
-
 }
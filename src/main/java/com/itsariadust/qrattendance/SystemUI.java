@@ -2,27 +2,26 @@ package com.itsariadust.qrattendance;
 
 import org.opencv.core.Mat;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.awt.image.DataBufferByte;
 import java.text.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
-
-import static com.itsariadust.qrattendance.QRAttendance.studentDao;
+import java.util.List;
 
 public class SystemUI extends JFrame {
     private static QRAttendance qrAttendance;
-    private static AttendanceTableModel attendanceTableModel;
     private LogWindow logWindow;
 
     // Component variables
-    private JLabel imageLabel;
+    private List<PreviewPanel> previews;
     private JLabel label;
     private JLabel timeLabel;
     private JLabel dayLabel;
@@ -42,9 +41,8 @@ public class SystemUI extends JFrame {
 
     Font font = new Font("Arial", Font.PLAIN, 16);
 
-    public SystemUI(QRAttendance qrAttendance, AttendanceTableModel model) {
+    public SystemUI(QRAttendance qrAttendance, List<String> sourceNames) {
         this.qrAttendance = qrAttendance;
-        this.attendanceTableModel = model;
         setTitle("QR Attendance System");
         setSize(1280, 960);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -54,13 +52,23 @@ public class SystemUI extends JFrame {
         gbc.insets = new Insets(5, 5, 5, 5);
         gbc.fill = GridBagConstraints.BOTH;
 
-        // Left side: Camera feed
-        JPanel cameraPanel = new JPanel();
+        // Left side: Camera feeds, one preview per camera
+        int columns = (int) Math.ceil(Math.sqrt(Math.max(1, sourceNames.size())));
+        int rows = (int) Math.ceil((double) Math.max(1, sourceNames.size()) / columns);
+        JPanel cameraPanel = new JPanel(new GridLayout(rows, columns));
         cameraPanel.setBackground(Color.BLACK);
         cameraPanel.setPreferredSize(new Dimension(600, 600));
         cameraPanel.setBorder(BorderFactory.createTitledBorder("Camera Feed"));
 
-        imageLabel = new JLabel();
+        previews = new ArrayList<>();
+        for (String sourceName : sourceNames) {
+            PreviewPanel preview = new PreviewPanel(QRAttendance.previewFps);
+            if (sourceNames.size() > 1) {
+                preview.setBorder(BorderFactory.createTitledBorder(sourceName));
+            }
+            previews.add(preview);
+            cameraPanel.add(preview);
+        }
 
         gbc.gridx = 0;
         gbc.gridy = 0;
@@ -68,7 +76,6 @@ public class SystemUI extends JFrame {
         gbc.weightx = 0.5;
         gbc.weighty = 1.0;
         add(cameraPanel, gbc);
-        cameraPanel.add(imageLabel);
 
         // Right top: Student info panel
         JPanel studentInfoPanel = new JPanel(new GridBagLayout());
@@ -159,25 +166,28 @@ public class SystemUI extends JFrame {
         setTime();
     }
 
-    public void updateLabel(Mat frame) {
-        BufferedImage image = matToBufferedImage(frame);
-        if (image != null) {
-            imageLabel.setIcon(new ImageIcon(image));
-        }
+    public PreviewPanel getPreview(int camera) {
+        return previews.get(camera);
     }
 
-    private BufferedImage matToBufferedImage(Mat mat) {
-        int width = mat.width(), height = mat.height(), channels = mat.channels();
-        byte[] sourcePixels = new byte[width * height * channels];
-        mat.get(0, 0, sourcePixels);
+    // Copy the Mat straight into the image's raster, reusing the image when its size and type still match
+    static BufferedImage matToBufferedImage(Mat mat, BufferedImage reuse) {
+        int width = mat.width(), height = mat.height();
+        int type = mat.channels() == 1 ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_3BYTE_BGR;
 
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
-        image.getRaster().setDataElements(0, 0, width, height, sourcePixels);
+        BufferedImage image = reuse;
+        if (image == null || image.getWidth() != width || image.getHeight() != height || image.getType() != type) {
+            image = new BufferedImage(width, height, type);
+        }
+        byte[] targetPixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        mat.get(0, 0, targetPixels);
         return image;
     }
 
-    public void displayImage(ImageIcon image) {
-        imageLabel.setIcon(image);
+    // Show a scanned student on the camera's preview and hold it there without blocking capture
+    public void showStudent(PreviewPanel preview, ArrayList<String> studentInfo, ImageIcon photo, long holdMillis) {
+        displayStudentInfo(studentInfo);
+        preview.showStill(photo == null ? null : photo.getImage(), holdMillis);
     }
 
     public void setTime() {
@@ -214,12 +224,26 @@ public class SystemUI extends JFrame {
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
-            SystemUI ui = new SystemUI(qrAttendance, attendanceTableModel);
+            SystemUI ui = new SystemUI(qrAttendance, List.of("Camera"));
             ui.setVisible(true);
         });
     }
 
     class LogWindow extends JFrame {
+        // Pause after the last keystroke before the log is re-queried
+        private static final int FILTER_DELAY_MS = 250;
+
+        private JTextField studentFilter;
+        private JComboBox<String> statusFilter;
+        private JTextField fromFilter;
+        private JTextField toFilter;
+        private JLabel matchLabel;
+        private JButton newRowsButton;
+        private Timer filterTimer;
+
+        // The log's rows, loaded and polled only while this window is open
+        private final AttendanceTableModel attendanceTableModel = new AttendanceTableModel(QRAttendance.attendanceDao);
+
         public LogWindow() {
             setTitle("AttendanceLog");
             setSize(800, 600);
@@ -298,6 +322,17 @@ public class SystemUI extends JFrame {
             addTableSelectionListener(logTable);
             JScrollPane sp = new JScrollPane(logTable);
             logPanel.add(sp, BorderLayout.CENTER);
+            logPanel.add(createFilterPanel(), BorderLayout.NORTH);
+            logPanel.add(createNewRowsButton(sp), BorderLayout.SOUTH);
+
+            Runnable stopPolling = qrAttendance.startPolling(attendanceTableModel);
+            addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    stopPolling.run();
+                    attendanceTableModel.close();
+                }
+            });
 
             gbc.gridx = 1;
             gbc.gridy = 1;
@@ -305,35 +340,155 @@ public class SystemUI extends JFrame {
             add(logPanel, gbc);
         }
 
+        // Student number, status and date range filters, evaluated by the database as the user types
+        private JPanel createFilterPanel() {
+            JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            studentFilter = new JTextField(10);
+            statusFilter = new JComboBox<>(new String[]{"Any", AttendanceState.LOGGED_IN, AttendanceState.LOGGED_OUT});
+            fromFilter = new JTextField(8);
+            toFilter = new JTextField(8);
+            studentFilter.setToolTipText("Student number, or its first digits");
+            fromFilter.setToolTipText("yyyy-mm-dd");
+            toFilter.setToolTipText("yyyy-mm-dd");
+            matchLabel = new JLabel();
+
+            filterPanel.add(new JLabel("Student No:"));
+            filterPanel.add(studentFilter);
+            filterPanel.add(new JLabel("Status:"));
+            filterPanel.add(statusFilter);
+            filterPanel.add(new JLabel("From:"));
+            filterPanel.add(fromFilter);
+            filterPanel.add(new JLabel("To:"));
+            filterPanel.add(toFilter);
+            filterPanel.add(matchLabel);
+
+            filterTimer = new Timer(FILTER_DELAY_MS, e -> applyFilter());
+            filterTimer.setRepeats(false);
+            DocumentListener restartTimer = new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent e) {
+                    filterTimer.restart();
+                }
+
+                @Override
+                public void removeUpdate(DocumentEvent e) {
+                    filterTimer.restart();
+                }
+
+                @Override
+                public void changedUpdate(DocumentEvent e) {
+                    filterTimer.restart();
+                }
+            };
+            studentFilter.getDocument().addDocumentListener(restartTimer);
+            fromFilter.getDocument().addDocumentListener(restartTimer);
+            toFilter.getDocument().addDocumentListener(restartTimer);
+            statusFilter.addActionListener(e -> filterTimer.restart());
+
+            // Keep the match count current as polls add rows
+            attendanceTableModel.addTableModelListener(e -> updateMatchCount());
+            addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    filterTimer.stop();
+                }
+            });
+            updateMatchCount();
+            return filterPanel;
+        }
+
+        // New rows show up by themselves at the top of the log; further down they wait behind this button
+        private JButton createNewRowsButton(JScrollPane sp) {
+            newRowsButton = new JButton();
+            newRowsButton.setVisible(false);
+            newRowsButton.addActionListener(e -> {
+                logTable.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+                attendanceTableModel.showNewRows();
+            });
+            sp.getViewport().addChangeListener(e ->
+                    attendanceTableModel.setFollowNewRows(sp.getViewport().getViewPosition().y == 0));
+            attendanceTableModel.setNewRowsListener(count -> {
+                newRowsButton.setText(count == 1 ? "1 new record" : count + " new records");
+                newRowsButton.setVisible(count > 0);
+            });
+            return newRowsButton;
+        }
+
+        private void applyFilter() {
+            Long studentNo = null;
+            LocalDate from = null;
+            LocalDate to = null;
+            boolean valid = true;
+
+            String studentText = studentFilter.getText().trim();
+            if (!studentText.isEmpty()) {
+                long parsed = StudentRoster.parseStudentNo(studentText);
+                valid &= markValid(studentFilter, parsed != 0);
+                studentNo = parsed;
+            }
+            try {
+                from = fromFilter.getText().isBlank() ? null : LocalDate.parse(fromFilter.getText().trim());
+                markValid(fromFilter, true);
+            } catch (DateTimeParseException e) {
+                valid &= markValid(fromFilter, false);
+            }
+            try {
+                to = toFilter.getText().isBlank() ? null : LocalDate.parse(toFilter.getText().trim());
+                markValid(toFilter, true);
+            } catch (DateTimeParseException e) {
+                valid &= markValid(toFilter, false);
+            }
+            if (!valid) {
+                return; // Keep showing the last valid result until the input is complete
+            }
+
+            String status = statusFilter.getSelectedIndex() == 0 ? null : (String) statusFilter.getSelectedItem();
+            // Until the roster has loaded, a prefix may be the start of any number a long can hold
+            int maxDigits = QRAttendance.roster.maxDigits();
+            AttendanceFilter filter = new AttendanceFilter(studentNo, maxDigits == 0 ? 18 : maxDigits, status, from, to);
+            if (!filter.equals(attendanceTableModel.getFilter())) {
+                attendanceTableModel.setFilter(filter, added -> updateMatchCount());
+                matchLabel.setText("Searching…"); // Until the matching rows have been counted
+            }
+        }
+
+        private boolean markValid(JTextField field, boolean valid) {
+            field.setForeground(valid ? Color.BLACK : Color.RED);
+            return valid;
+        }
+
+        private void updateMatchCount() {
+            matchLabel.setText(attendanceTableModel.getRowCount() + " records");
+        }
+
         private void addTableSelectionListener(JTable table) {
+            LogDetailLoader detailLoader = new LogDetailLoader(qrAttendance, QRAttendance.roster, QRAttendance.photoCache);
+            addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    detailLoader.shutdown();
+                }
+            });
             table.getSelectionModel().addListSelectionListener(event -> {
                 if (!event.getValueIsAdjusting()) {
                     int selectedRow = table.getSelectedRow();
                     if (selectedRow != -1) {
                         int modelRow = table.convertRowIndexToModel(selectedRow);
-                        String idValue = table.getModel().getValueAt(modelRow, 0).toString();
-                        ArrayList<String> record = qrAttendance.getAttendanceInfo(QRAttendance.attendanceDao,
-                                studentDao, idValue);
-                        byte[] studentImgByte = studentDao.findPicture(record.get(0));
-                        InputStream is = new ByteArrayInputStream(studentImgByte);
-                        BufferedImage img = null;
-                        try {
-                            img = ImageIO.read(is);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                        Image scaledImg = img.getScaledInstance(300, 300, Image.SCALE_SMOOTH);
-                        if (scaledImg == null) {
-                            System.out.println("ImageIO.read returned null – image data may be corrupted or invalid format.");
-                            return;
+                        Attendance selected = attendanceTableModel.getRecordAt(modelRow);
+                        if (selected == null) {
+                            return; // Page still loading
                         }
-                        studentImg.setIcon(new ImageIcon(scaledImg));
-                        textFields[0].setText(record.get(0)); // Student No.
-                        textFields[1].setText(record.get(1)); // Name
-                        textFields[2].setText(record.get(2)); // Program
-                        textFields[3].setText(record.get(3)); // Year Level
-                        textFields[4].setText(record.get(4)); // Status
-                        textFields[5].setText(record.get(5)); // Timestamp
+                        // Student lookup and photo run in the background; the panel updates once they're in
+                        detailLoader.load(selected, LogDetailLoader.neighbours(attendanceTableModel, modelRow), detail -> {
+                            ArrayList<String> record = detail.info();
+                            studentImg.setIcon(detail.photo());
+                            textFields[0].setText(record.get(0)); // Student No.
+                            textFields[1].setText(record.get(1)); // Name
+                            textFields[2].setText(record.get(2)); // Program
+                            textFields[3].setText(record.get(3)); // Year Level
+                            textFields[4].setText(record.get(4)); // Status
+                            textFields[5].setText(record.get(5)); // Timestamp
+                        });
                     }
                 }
             });
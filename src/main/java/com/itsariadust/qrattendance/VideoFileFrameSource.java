@@ -0,0 +1,48 @@
+package com.itsariadust.qrattendance;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+
+import java.nio.file.Path;
+
+// Replays a recorded video file as fast as it can be decoded
+public class VideoFileFrameSource implements FrameSource {
+    private final Path file;
+    private final VideoCapture video;
+    private boolean finished;
+
+    public VideoFileFrameSource(Path file) {
+        this.file = file;
+        this.video = new VideoCapture(file.toString());
+        if (!video.isOpened()) {
+            throw new IllegalArgumentException("Cannot open video file: " + file);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return file.getFileName().toString();
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        if (finished) {
+            return false;
+        }
+        if (!video.read(frame) || frame.empty()) {
+            finished = true;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    public void close() {
+        video.release();
+    }
+}
@@ -0,0 +1,18 @@
+-- Tables the application has always expected; existing installs keep their current definitions
+CREATE TABLE IF NOT EXISTS students (
+    StudentNo BIGINT NOT NULL PRIMARY KEY,
+    FirstName VARCHAR(100) NOT NULL,
+    MiddleName VARCHAR(100),
+    LastName VARCHAR(100) NOT NULL,
+    ProgramID VARCHAR(50),
+    YearLevel VARCHAR(20),
+    Picture MEDIUMBLOB
+);
+
+-- No foreign key to students, so the table can still be partitioned later
+CREATE TABLE IF NOT EXISTS attendance (
+    AttendanceID BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    StudentNo BIGINT NOT NULL,
+    Timestamp DATETIME NOT NULL,
+    Status VARCHAR(20) NOT NULL
+);
@@ -0,0 +1,7 @@
+-- Latest record per student and the log window's student search:
+-- WHERE StudentNo = ? ORDER BY Timestamp DESC
+CREATE INDEX idx_attendance_student_time ON attendance (StudentNo, Timestamp);
+
+-- Log paging: ORDER BY Timestamp DESC, AttendanceID DESC and the keyset seek on the same pair.
+-- InnoDB appends the primary key to secondary indexes; it is spelled out for other engines.
+CREATE INDEX idx_attendance_time ON attendance (Timestamp, AttendanceID);
@@ -0,0 +1,16 @@
+-- Optional (DB_PARTITION_ATTENDANCE=true, MySQL only): yearly range partitions on Timestamp,
+-- so date-bounded queries and reports only touch the years they ask for and old years can be dropped whole.
+-- MySQL requires the partitioning column in every unique key, hence the wider primary key.
+-- Needs the DATETIME Timestamp column created by V1.
+ALTER TABLE attendance
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (AttendanceID, Timestamp);
+
+ALTER TABLE attendance
+    PARTITION BY RANGE (TO_DAYS(Timestamp)) (
+        PARTITION p2024 VALUES LESS THAN (TO_DAYS('2025-01-01')),
+        PARTITION p2025 VALUES LESS THAN (TO_DAYS('2026-01-01')),
+        PARTITION p2026 VALUES LESS THAN (TO_DAYS('2027-01-01')),
+        PARTITION p2027 VALUES LESS THAN (TO_DAYS('2028-01-01')),
+        PARTITION pmax VALUES LESS THAN MAXVALUE
+    );
@@ -0,0 +1,4 @@
+-- Pre-sized JPEG copies of Picture for the scanner panel and the log window.
+-- Filled by the roster import, and by --backfill-photos for pictures stored before them.
+ALTER TABLE students ADD COLUMN PictureDisplay MEDIUMBLOB;
+ALTER TABLE students ADD COLUMN PictureThumb BLOB;
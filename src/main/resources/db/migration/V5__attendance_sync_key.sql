@@ -0,0 +1,6 @@
+-- Where a pushed row came from: the gate's id and the row's AttendanceID in that gate's local store.
+-- A batch re-sent after a crash between the remote commit and marking it synced hits the unique key and is skipped.
+-- Timestamp is part of the key because a partitioned table needs the partitioning column in every unique key.
+ALTER TABLE attendance ADD COLUMN GateID VARCHAR(36);
+ALTER TABLE attendance ADD COLUMN LocalID BIGINT;
+CREATE UNIQUE INDEX idx_attendance_sync_key ON attendance (GateID, LocalID, Timestamp);
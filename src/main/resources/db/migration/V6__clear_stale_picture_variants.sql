@@ -0,0 +1,9 @@
+-- A Picture changed by anything other than the roster import (an admin editing the row, say) would keep serving the
+-- old pre-sized copies. Clearing them falls back to Picture until --backfill-photos makes new ones; an update that
+-- writes the copies alongside the picture, as the import does, keeps them. MySQL only.
+DROP TRIGGER IF EXISTS students_picture_variants;
+CREATE TRIGGER students_picture_variants BEFORE UPDATE ON students FOR EACH ROW
+    SET NEW.PictureDisplay = IF((NEW.Picture <=> OLD.Picture) OR NOT (NEW.PictureDisplay <=> OLD.PictureDisplay),
+            NEW.PictureDisplay, NULL),
+        NEW.PictureThumb = IF((NEW.Picture <=> OLD.Picture) OR NOT (NEW.PictureThumb <=> OLD.PictureThumb),
+            NEW.PictureThumb, NULL);
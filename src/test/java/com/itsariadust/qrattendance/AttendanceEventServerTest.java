@@ -0,0 +1,99 @@
+package com.itsariadust.qrattendance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttendanceEventServerTest {
+    private static final String ORIGIN = "http://dashboard.local:3000";
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private AttendanceEventBus bus;
+    private AttendanceEventServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bus = new AttendanceEventBus(100);
+        server = new AttendanceEventServer(bus, "127.0.0.1", 0, ORIGIN);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void anIdFromBeforeARestartReplaysTheBuffer() throws Exception {
+        publish(3);
+        String epoch = String.valueOf(bus.getEpoch());
+
+        // Another run of the gate, and a bare sequence this run hasn't reached
+        assertEquals(List.of(epoch + "-1", epoch + "-2", epoch + "-3"), streamIds("1-5000", 3));
+        assertEquals(List.of(epoch + "-1", epoch + "-2", epoch + "-3"), streamIds("5000", 3));
+        // This run's own id still resumes where it left off
+        assertEquals(List.of(epoch + "-3"), streamIds(epoch + "-2", 1));
+    }
+
+    @Test
+    void onlyTheConfiguredOriginMayReadEvents() throws Exception {
+        assertEquals(ORIGIN, recent(ORIGIN).headers().firstValue("Access-Control-Allow-Origin").orElse(null));
+        assertTrue(recent("http://elsewhere.local").headers().firstValue("Access-Control-Allow-Origin").isEmpty());
+    }
+
+    private void publish(int count) {
+        List<Attendance> committed = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Attendance attendance = new Attendance();
+            attendance.setStudentNo(2023000000L + i);
+            attendance.setTimestamp(Timestamp.valueOf(LocalDateTime.of(2026, 1, 5, 8, 0, i)));
+            attendance.setStatus(AttendanceState.LOGGED_IN);
+            committed.add(attendance);
+        }
+        bus.publish(committed);
+    }
+
+    // Ids of the first events sent to a client reconnecting with lastEventId
+    private List<String> streamIds(String lastEventId, int count) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/events/stream"))
+                .header("Last-Event-ID", lastEventId)
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        List<String> ids = new ArrayList<>();
+        try (Stream<String> lines = response.body()) {
+            Iterator<String> it = lines.iterator();
+            while (ids.size() < count && it.hasNext()) {
+                String line = it.next();
+                if (line.startsWith("id: ")) {
+                    ids.add(line.substring(4));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private HttpResponse<String> recent(String origin) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/events/recent")).header("Origin", origin).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+}
@@ -0,0 +1,179 @@
+package com.itsariadust.qrattendance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttendanceTableModelTest {
+    private LocalStore store;
+    private AttendanceDao attendanceDao;
+    private AttendanceTableModel model;
+    private LocalDateTime clock = LocalDateTime.of(2026, 1, 5, 8, 0);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = LocalStore.scratch("log-" + UUID.randomUUID());
+        attendanceDao = store.getAttendanceDao();
+        insert(AttendanceTableModel.PAGE_SIZE * 3);
+        model = new AttendanceTableModel(attendanceDao);
+        poll();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        onEdt(() -> {
+            model.close();
+            return null;
+        });
+        store.close();
+    }
+
+    @Test
+    void rowsArrivingWhileScrolledDownWaitUntilShown() throws Exception {
+        int initial = AttendanceTableModel.PAGE_SIZE * 3;
+        int deepRow = AttendanceTableModel.PAGE_SIZE * 2 + 10;
+        assertEquals(initial, onEdt(model::getRowCount));
+        Object before = loaded(deepRow);
+
+        onEdt(() -> {
+            model.setFollowNewRows(false);
+            return null;
+        });
+        insert(5);
+        assertEquals(5, poll());
+
+        assertEquals(initial, onEdt(model::getRowCount));
+        assertEquals(5, onEdt(model::getNewRowCount));
+        assertEquals(before, loaded(deepRow)); // Same record under the reader
+
+        onEdt(() -> {
+            model.setFollowNewRows(true);
+            return null;
+        });
+        assertEquals(initial + 5, onEdt(model::getRowCount));
+        assertEquals(0, onEdt(model::getNewRowCount));
+        assertEquals(before, loaded(deepRow + 5));
+    }
+
+    @Test
+    void rowsArrivingAtTheTopAreShownStraightAway() throws Exception {
+        insert(3);
+        assertEquals(3, poll());
+        assertEquals(AttendanceTableModel.PAGE_SIZE * 3 + 3, onEdt(model::getRowCount));
+        assertEquals(0, onEdt(model::getNewRowCount));
+    }
+
+    @Test
+    void aRowCommittedAfterANewerIdIsStillCounted() throws Exception {
+        int initial = AttendanceTableModel.PAGE_SIZE * 3;
+        // Ids handed out as 901 and 902, but 902 commits first
+        insertWithId(902);
+        assertEquals(1, poll());
+        insertWithId(901);
+        assertEquals(1, poll());
+        assertEquals(initial + 2, onEdt(model::getRowCount));
+    }
+
+    @Test
+    void aPageJumpedToFirstLinesUpWithTheEndsOnceTheyLoad() throws Exception {
+        List<Long> ids = attendanceDao.withHandle(handle -> handle.createQuery(
+                "SELECT AttendanceID FROM attendance ORDER BY Timestamp DESC, AttendanceID DESC")
+                .mapTo(Long.class).list());
+        int middle = AttendanceTableModel.PAGE_SIZE + 10;
+        // Nothing loaded yet, so the middle page seeks to a timestamp between the ends
+        assertEquals(ids.get(middle), loaded(middle));
+        for (int row = 0; row < ids.size(); row++) {
+            assertEquals(ids.get(row), loaded(row), "row " + row);
+        }
+    }
+
+    @Test
+    void aPartlyTypedStudentNumberMatchesEveryNumberItStarts() throws Exception {
+        int initial = AttendanceTableModel.PAGE_SIZE * 3;
+        // 2023000040 to 2023000049: a fifth of the 50 students
+        assertEquals(initial / 5, filter(new AttendanceFilter(202300004L, 10, null, null, null)));
+        assertEquals(initial, filter(new AttendanceFilter(2023L, 10, null, null, null)));
+        assertEquals(initial / 50, filter(new AttendanceFilter(2023000042L, null, null, null)));
+        assertEquals(0, filter(new AttendanceFilter(2024L, 10, null, null, null)));
+    }
+
+    private int filter(AttendanceFilter filter) throws Exception {
+        CountDownLatch counted = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(() -> model.setFilter(filter, added -> counted.countDown()));
+        assertTrue(counted.await(10, TimeUnit.SECONDS));
+        return onEdt(model::getRowCount);
+    }
+
+    private void insertWithId(long attendanceId) {
+        clock = clock.plusSeconds(1);
+        attendanceDao.useHandle(handle -> handle.execute(
+                "INSERT INTO attendance (AttendanceID, StudentNo, Timestamp, Status) VALUES (?, ?, ?, ?)",
+                attendanceId, 2023000000L, Timestamp.valueOf(clock), AttendanceState.LOGGED_IN));
+    }
+
+    private void insert(int count) {
+        List<Attendance> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            clock = clock.plusSeconds(1);
+            Attendance attendance = new Attendance();
+            attendance.setStudentNo(2023000000L + i % 50);
+            attendance.setTimestamp(Timestamp.valueOf(clock));
+            attendance.setStatus(i % 2 == 0 ? AttendanceState.LOGGED_IN : AttendanceState.LOGGED_OUT);
+            rows.add(attendance);
+        }
+        attendanceDao.insertBatch(rows);
+    }
+
+    private int poll() throws Exception {
+        CountDownLatch polled = new CountDownLatch(1);
+        int[] added = new int[1];
+        SwingUtilities.invokeAndWait(() -> model.poll(count -> {
+            added[0] = count;
+            polled.countDown();
+        }));
+        assertTrue(polled.await(10, TimeUnit.SECONDS));
+        return added[0];
+    }
+
+    // Record id shown in a row, waiting for its page to load
+    private Object loaded(int row) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            Object value = onEdt(() -> model.getValueAt(row, 0));
+            if (!AttendanceTableModel.LOADING.equals(value)) {
+                return value;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Row " + row + " never loaded");
+    }
+
+    private static <T> T onEdt(Callable<T> task) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result.set(task.call());
+            } catch (Exception e) {
+                error.set(e);
+            }
+        });
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+}
@@ -0,0 +1,30 @@
+package com.itsariadust.qrattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoCacheTest {
+    @Test
+    void missesSkipTheDatabaseWhileItIsOffline() {
+        AtomicInteger fetches = new AtomicInteger();
+        StudentDao studentDao = (StudentDao) Proxy.newProxyInstance(StudentDao.class.getClassLoader(),
+                new Class<?>[]{StudentDao.class}, (proxy, method, args) -> {
+                    fetches.incrementAndGet();
+                    return null; // No picture stored
+                });
+        AtomicBoolean online = new AtomicBoolean(false);
+        PhotoCache cache = new PhotoCache(studentDao, 1024 * 1024, online::get);
+
+        assertNull(cache.get(2023001234L, StudentPhotos.THUMB_SIZE, StudentPhotos.THUMB_SIZE));
+        assertEquals(0, fetches.get());
+
+        online.set(true);
+        assertNull(cache.get(2023001234L, StudentPhotos.THUMB_SIZE, StudentPhotos.THUMB_SIZE));
+        assertEquals(1, fetches.get());
+    }
+}
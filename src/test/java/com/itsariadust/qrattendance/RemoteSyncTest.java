@@ -0,0 +1,233 @@
+package com.itsariadust.qrattendance;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.tools.Server;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.reflect.BeanMapper;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opencv.core.Mat;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The gate against an H2 server in MySQL mode standing in for MySQL, which the tests stop and start again
+class RemoteSyncTest {
+    private static final String FIRST_STUDENT = "2023001234";
+    private static final String SECOND_STUDENT = "2023005678";
+
+    @TempDir
+    Path dir;
+
+    private Server remoteServer;
+    private int remotePort;
+    private HikariDataSource remoteDataSource;
+    private Jdbi remote;
+    private LocalStore localStore;
+    private Jdbi local;
+    private RemoteSync remoteSync;
+    private PhotoCache photoCache;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        remoteServer = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        remotePort = remoteServer.getPort();
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:tcp://localhost:" + remotePort + "/" + dir.resolve("remote").toAbsolutePath()
+                + ";MODE=MySQL");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setConnectionTimeout(250); // Fail fast while the server is down, like a short DB_POOL_TIMEOUT_MS
+        config.setInitializationFailTimeout(-1);
+        remoteDataSource = new HikariDataSource(config);
+        remote = Jdbi.create(remoteDataSource);
+        remote.installPlugin(new SqlObjectPlugin());
+        remote.registerRowMapper(BeanMapper.factory(Students.class));
+        remote.registerRowMapper(BeanMapper.factory(Attendance.class));
+        new SchemaMigrator(remote, false).migrate();
+        remote.useHandle(handle -> handle.execute("""
+                INSERT INTO students (StudentNo, FirstName, LastName) VALUES (?, 'Ada', 'Lovelace'), (?, 'Alan', 'Turing')
+                """, Long.parseLong(FIRST_STUDENT), Long.parseLong(SECOND_STUDENT)));
+
+        String localName = "gate-" + UUID.randomUUID();
+        localStore = LocalStore.scratch(localName);
+        local = Jdbi.create("jdbc:h2:mem:" + localName, "sa", ""); // Same in-memory database, for checks the DAOs lack
+        QRAttendance.roster = new StudentRoster(localStore.getStudentDao(), 100, 0.001);
+        photoCache = new PhotoCache(remote.onDemand(StudentDao.class), 1024 * 1024);
+        remoteSync = new RemoteSync(localStore, remote.onDemand(StudentDao.class), remote.onDemand(AttendanceDao.class),
+                QRAttendance.roster, photoCache, 10, 60_000, 60_000, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (QRAttendance.attendanceWriter != null) {
+            QRAttendance.attendanceWriter.shutdown();
+            QRAttendance.attendanceWriter = null;
+        }
+        localStore.close();
+        remoteDataSource.close();
+        remoteServer.stop();
+    }
+
+    @Test
+    void scansDuringAnOutageAreRecordedAndPushedOnceTheRemoteIsBack() throws Exception {
+        remoteSync.pullRoster();
+        assertTrue(remoteSync.isOnline());
+        assertEquals(2, QRAttendance.roster.size());
+
+        stopRemote();
+
+        QRAttendance system = new QRAttendance(); // Loads OpenCV, which the pipeline's frame buffers need
+        QRAttendance.attendanceState = new AttendanceState();
+        QRAttendance.attendanceState.load(localStore.getAttendanceDao());
+        QRAttendance.attendanceWriter = new AttendanceWriter(localStore.getAttendanceDao(), 10, 50, 1000,
+                dir.resolve("dead-letter.csv"), new ScanMetrics(), new AttendanceEventBus(100));
+        QRAttendance.attendanceWriter.start();
+
+        ScanEngine engine = new ScanEngine(system, null);
+        ScanPipeline gate = engine.addSource(new NoFrames(), null, false);
+        engine.start();
+        int scans = 40;
+        for (int i = 0; i < scans; i++) {
+            engine.submit(gate, i % 2 == 0 ? FIRST_STUDENT : SECOND_STUDENT, false); // Never waits, like a camera
+        }
+        engine.awaitCompletion();
+        engine.stop();
+        QRAttendance.attendanceWriter.shutdown();
+        QRAttendance.attendanceWriter = null;
+
+        assertEquals(scans, engine.getRecorded());
+        assertEquals(scans, localStore.getLocalStoreDao().countUnsynced());
+
+        remoteSync.pushAttendance();
+        assertFalse(remoteSync.isOnline());
+        assertEquals(scans, localStore.getLocalStoreDao().countUnsynced());
+
+        remoteServer = Server.createTcpServer("-tcpPort", String.valueOf(remotePort), "-ifNotExists").start();
+        remoteSync.pushAttendance();
+
+        assertTrue(remoteSync.isOnline());
+        assertEquals(0, localStore.getLocalStoreDao().countUnsynced());
+        assertEquals(scans, rows(remote));
+    }
+
+    @Test
+    void aBatchResentAfterACrashIsNotStoredTwice() {
+        localStore.getAttendanceDao().insertBatch(List.of(
+                attendance(FIRST_STUDENT, 0, "Logged in"), attendance(SECOND_STUDENT, 0, "Logged in")));
+        remoteSync.pushAttendance();
+        assertEquals(2, rows(remote));
+
+        // MySQL committed the batch but the gate died before marking it synced
+        localStore.getAttendanceDao().insertBatch(List.of(attendance(FIRST_STUDENT, 0, "Logged out")));
+        local.useHandle(handle -> handle.execute("UPDATE attendance SET Synced = FALSE"));
+        remoteSync.pushAttendance();
+
+        assertEquals(3, rows(remote));
+        assertEquals(0, localStore.getLocalStoreDao().countUnsynced());
+    }
+
+    @Test
+    void pruningKeepsUnsyncedRowsAndEachStudentsLatest() {
+        String third = "2023009999";
+        localStore.getAttendanceDao().insertBatch(List.of(
+                attendance(FIRST_STUDENT, 40, "Logged in"),
+                attendance(FIRST_STUDENT, 35, "Logged out"),
+                attendance(FIRST_STUDENT, 0, "Logged in"),
+                attendance(SECOND_STUDENT, 40, "Logged in")));
+        remoteSync.pushAttendance();
+        localStore.getAttendanceDao().insertBatch(List.of(attendance(third, 40, "Logged in")));
+
+        remoteSync.pruneSynced();
+
+        // The first student's two old rows go; the second student's only row and the unsynced one stay
+        assertEquals(3, rows(local));
+        assertEquals(1, localStore.getLocalStoreDao().countUnsynced());
+        assertEquals(4, rows(remote));
+    }
+
+    @Test
+    void aPictureChangedOnTheServerIsShownAfterTheNextPull() throws Exception {
+        setPicture(Color.RED);
+        assertEquals(Color.RED, photoColor());
+
+        setPicture(Color.BLUE); // Cleared copies, as MySQL's trigger leaves them
+        assertEquals(Color.RED, photoColor()); // Still cached
+        remoteSync.pullRoster();
+        assertEquals(Color.BLUE, photoColor());
+    }
+
+    private void setPicture(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 16, 16);
+        g.dispose();
+        byte[] picture = StudentPhotos.encodeJpeg(image, 1f);
+        remote.useHandle(handle -> handle.execute("""
+                UPDATE students SET Picture = ?, PictureDisplay = NULL, PictureThumb = NULL WHERE StudentNo = ?
+                """, picture, Long.parseLong(FIRST_STUDENT)));
+    }
+
+    // Nearest primary colour of the cached thumbnail, since JPEG shifts the exact values
+    private Color photoColor() {
+        ImageIcon icon = photoCache.get(FIRST_STUDENT, StudentPhotos.THUMB_SIZE, StudentPhotos.THUMB_SIZE);
+        Color pixel = new Color(((BufferedImage) icon.getImage()).getRGB(0, 0));
+        return pixel.getRed() > pixel.getBlue() ? Color.RED : Color.BLUE;
+    }
+
+    private static Attendance attendance(String studentNo, int daysAgo, String status) {
+        Attendance attendance = new Attendance();
+        attendance.setStudentNo(Long.parseLong(studentNo));
+        attendance.setTimestamp(Timestamp.valueOf(LocalDateTime.now().minusDays(daysAgo)));
+        attendance.setStatus(status);
+        return attendance;
+    }
+
+    // Hikari drops connections on MySQL's link-failure SQL states, but not on H2's, so the dead ones are evicted here
+    private void stopRemote() {
+        remoteServer.stop();
+        remoteDataSource.getHikariPoolMXBean().softEvictConnections();
+    }
+
+    private static int rows(Jdbi jdbi) {
+        return jdbi.withHandle(handle -> handle.createQuery("SELECT COUNT(*) FROM attendance").mapTo(Integer.class).one());
+    }
+
+    // A source that has already delivered its last frame; scans are submitted by the test directly
+    private static class NoFrames implements FrameSource {
+        @Override
+        public String getName() {
+            return "test-gate";
+        }
+
+        @Override
+        public boolean read(Mat frame) {
+            return false;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.itsariadust.qrattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportTotalsTest {
+    @Test
+    void csvRowKeepsItsColumnsUnderACommaDecimalLocale() {
+        ReportTotals totals = new ReportTotals();
+        totals.students = 3;
+        totals.scans = 8;
+        totals.sessions = 4;
+        totals.sessionSeconds = 5400;
+
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            String header = ReportTotals.csvHeader("day");
+            String row = totals.toCsv("2026-01-05");
+            assertEquals(header.split(",").length, row.split(",").length);
+            assertEquals("2026-01-05,3,8,4,1.50,22.5,0,0", row);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.itsariadust.qrattendance;
+
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+    @Test
+    void aScriptThatFailedHalfwayIsFinishedOnTheNextRun() {
+        Jdbi jdbi = Jdbi.create("jdbc:h2:mem:schema-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        new SchemaMigrator(jdbi, false).migrate(4);
+
+        // V5's first statement committed, then the run died before the rest and before recording V5
+        jdbi.useHandle(handle -> handle.execute("ALTER TABLE attendance ADD COLUMN GateID VARCHAR(36)"));
+        new SchemaMigrator(jdbi, false).migrate();
+
+        List<Integer> versions = jdbi.withHandle(handle -> handle.createQuery(
+                "SELECT Version FROM schema_version ORDER BY Version").mapTo(Integer.class).list());
+        assertEquals(List.of(1, 2, 4, 5), versions);
+        int syncKeys = jdbi.withHandle(handle -> handle.createQuery("""
+                SELECT COUNT(*) FROM information_schema.indexes WHERE index_name = 'IDX_ATTENDANCE_SYNC_KEY'
+                """).mapTo(Integer.class).one());
+        assertEquals(1, syncKeys);
+    }
+
+    @Test
+    void indexesThatAlreadyExistAreNotCreatedAgain() {
+        Jdbi jdbi = Jdbi.create("jdbc:h2:mem:schema-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        new SchemaMigrator(jdbi, false).migrate(1);
+        jdbi.useHandle(handle -> handle.execute("CREATE INDEX idx_attendance_student_time ON attendance (StudentNo, Timestamp)"));
+
+        assertDoesNotThrow(() -> new SchemaMigrator(jdbi, false).migrate());
+    }
+}
@@ -0,0 +1,35 @@
+package com.itsariadust.qrattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentRosterTest {
+    @Test
+    void leadingZerosDoNotFailTheDigitCheck() {
+        Students student = new Students();
+        student.setStudentNo(2023001234L);
+        AtomicInteger lookups = new AtomicInteger();
+        StudentDao studentDao = (StudentDao) Proxy.newProxyInstance(StudentDao.class.getClassLoader(),
+                new Class<?>[]{StudentDao.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllStudents" -> List.of(student);
+                    case "studentExists" -> {
+                        lookups.incrementAndGet();
+                        yield false;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        StudentRoster roster = new StudentRoster(studentDao, 100, 0.001);
+        roster.refresh();
+
+        assertTrue(roster.contains("2023001234"));
+        assertTrue(roster.contains("002023001234"));
+        assertFalse(roster.contains("12345")); // Too few digits to be a student
+        assertFalse(roster.contains("2023x01234"));
+        assertEquals(0, lookups.get());
+    }
+}